@@ -0,0 +1,62 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.apiculture.systems.ApiarySystem;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the apiary breeding pipeline (mating, life ticks, and birth) across a farm of apiaries.
+ *
+ * Each operation advances game time by one life tick of the benchmark bees, so every queen in the farm ticks once.
+ * Queens die after a few ticks; their apiaries are then restocked, which includes mating in the following operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ApiaryPipelineBenchmark {
+    @Param({"1", "1000", "100000"})
+    public int apiaryCount;
+
+    private BenchmarkWorld world;
+    private EntityRef[] apiaries;
+
+    @Setup
+    public void setup() {
+        world = new BenchmarkWorld();
+        apiaries = new EntityRef[apiaryCount];
+        for (int i = 0; i < apiaryCount; i++) {
+            apiaries[i] = world.createApiary();
+            world.restockApiary(apiaries[i], i % 3);
+        }
+        world.step(ApiarySystem.MATING_TIME);
+    }
+
+    @Benchmark
+    public int lifeTick() {
+        world.step(BenchmarkWorld.TICK_TIME);
+        int restocked = 0;
+        for (int i = 0; i < apiaries.length; i++) {
+            if (world.restockApiary(apiaries[i], i % 3)) {
+                restocked++;
+            }
+        }
+        return restocked;
+    }
+}
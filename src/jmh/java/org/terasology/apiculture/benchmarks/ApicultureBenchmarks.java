@@ -0,0 +1,42 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the apiculture benchmarks with the GC profiler, reporting throughput alongside bytes allocated per operation
+ * ({@code gc.alloc.rate.norm}).
+ *
+ * An optional argument restricts the run to benchmarks matching the given regular expression.
+ *
+ * <h2>Building</h2>
+ * The module's build comes from the Terasology workspace, whose {@code terasology-module} plugin only compiles
+ * {@code src/main} and {@code src/test}. The module's {@code jmh.gradle} adds the benchmarks as a separate {@code jmh}
+ * source set, so they stay out of the module jar. Apply it at the end of the workspace's
+ * {@code modules/Apiculture/build.gradle}:
+ * <pre>
+ * apply from: "jmh.gradle"
+ * </pre>
+ * Then, from the workspace root:
+ * <pre>
+ * ./gradlew :modules:Apiculture:jmh -PjmhInclude=[regex]
+ * </pre>
+ * {@code ./gradlew :modules:Apiculture:check} compiles the benchmarks along with the module, so a change to the
+ * classes they drive that breaks them fails the build.
+ */
+public final class ApicultureBenchmarks {
+    private ApicultureBenchmarks() { }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ApicultureBenchmarks.class.getPackage().getName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
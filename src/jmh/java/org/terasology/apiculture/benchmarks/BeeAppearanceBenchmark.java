@@ -0,0 +1,129 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.apiculture.BeeAppearance;
+import org.terasology.apiculture.BeeRegistry;
+import org.terasology.apiculture.BeeSpeciesTable;
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabData;
+import org.terasology.engine.entitySystem.prefab.internal.PojoPrefab;
+import org.terasology.engine.logic.common.DisplayNameComponent;
+import org.terasology.engine.logic.inventory.ItemComponent;
+import org.terasology.gestalt.assets.AssetType;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.assets.management.AssetManager;
+import org.terasology.gestalt.assets.management.MapAssetTypeManager;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolving a bee's appearance through the species table flyweights against the string-built asset lookup
+ * previously done by {@code TempBeeRegistry.modifyItemForSpeciesAndType}.
+ *
+ * The legacy path resolves its string-built urn through a real {@link AssetManager}, as the old code did through the
+ * one in the {@code CoreRegistry}. Texture assets cannot be created without a rendering context, so the bee icons are
+ * registered as prefab assets instead. Resolution parses the urn, picks the asset types for the requested class and
+ * finds the loaded asset in the same way whatever the asset class is.
+ *
+ * Both paths write into the same item and display name components, so the difference is the cost of resolution alone.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BeeAppearanceBenchmark {
+    private static final String[] SPECIES_LETTERS = {"a", "b", "c"};
+
+    @Param({"DRONE", "PRINCESS", "QUEEN"})
+    public BeeComponent.BeeType type;
+
+    private AssetManager assetManager;
+
+    private final ItemComponent itemComponent = new ItemComponent();
+    private final DisplayNameComponent displayNameComponent = new DisplayNameComponent();
+
+    private BeeSpeciesTable table;
+    private int species;
+
+    @Setup
+    public void setup() {
+        MapAssetTypeManager assetTypeManager = new MapAssetTypeManager();
+        AssetType<Prefab, PrefabData> iconType = assetTypeManager.createAssetType(Prefab.class, PojoPrefab::new, "prefabs");
+        assetManager = new AssetManager(assetTypeManager);
+
+        BeeAppearance[] appearances = new BeeAppearance[BeeSpeciesTable.appearanceCount(SPECIES_LETTERS.length)];
+        for (int i = 0; i < SPECIES_LETTERS.length; i++) {
+            for (BeeComponent.BeeType beeType : BeeComponent.BeeType.values()) {
+                String typeName = beeType.name().toLowerCase();
+                iconType.loadAsset(new ResourceUrn("Apiculture:bee_" + SPECIES_LETTERS[i] + "_" + typeName), new PrefabData());
+                appearances[BeeSpeciesTable.appearanceIndex(i, beeType)] = new BeeAppearance(null,
+                        beeType == BeeComponent.BeeType.DRONE ? BeeRegistry.DRONE_STACK_ID : null,
+                        SPECIES_LETTERS[i].toUpperCase() + " " + typeName);
+            }
+        }
+        table = new BeeSpeciesTable(new boolean[] {true, true, true}, new String[3], new float[3], new Prefab[3], appearances);
+    }
+
+    @Benchmark
+    public Object legacyLookup() {
+        species = (species + 1) % SPECIES_LETTERS.length;
+
+        String typeName = "NULL";
+        switch (type) {
+            case DRONE:
+                typeName = "Drone";
+                break;
+            case PRINCESS:
+                typeName = "Princess";
+                break;
+            case QUEEN:
+                typeName = "Queen";
+                break;
+        }
+
+        Optional<Prefab> texture =
+                assetManager.getAsset("Apiculture:bee_" + new String[]{"a", "b", "c"}[species] + "_" + typeName.toLowerCase(), Prefab.class);
+        if (!texture.isPresent()) {
+            throw new IllegalStateException("Icon not found for species " + species + " and type '" + typeName + "'");
+        }
+
+        if (type == BeeComponent.BeeType.DRONE) {
+            itemComponent.stackId = "Apiculture:drone";
+        }
+
+        DisplayNameComponent newDisplayName = new DisplayNameComponent();
+        newDisplayName.name = new String[] {"A", "B", "C"}[species] + " " + typeName;
+        displayNameComponent.copyFrom(newDisplayName);
+        return texture.get();
+    }
+
+    @Benchmark
+    public Object flyweightLookup() {
+        species = (species + 1) % SPECIES_LETTERS.length;
+
+        BeeAppearance appearance = table.getAppearance(species, type);
+        itemComponent.icon = appearance.getIcon();
+        if (appearance.getStackId() != null) {
+            itemComponent.stackId = appearance.getStackId();
+        }
+        displayNameComponent.name = appearance.getDisplayName();
+        return appearance;
+    }
+}
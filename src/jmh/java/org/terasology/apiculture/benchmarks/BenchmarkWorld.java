@@ -0,0 +1,357 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.terasology.apiculture.BeeAppearance;
+import org.terasology.apiculture.BeeRegistry;
+import org.terasology.apiculture.BeeSpeciesTable;
+import org.terasology.apiculture.components.ApiaryComponent;
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.components.BeeTraitsComponent;
+import org.terasology.apiculture.components.ExtractorComponent;
+import org.terasology.apiculture.components.InjectorComponent;
+import org.terasology.apiculture.components.LocusSampleComponent;
+import org.terasology.apiculture.metrics.ApiaryMetrics;
+import org.terasology.apiculture.pedigree.PedigreeLog;
+import org.terasology.apiculture.systems.ApiaryStateStore;
+import org.terasology.apiculture.systems.ApiarySystem;
+import org.terasology.apiculture.systems.ApiaryTickScheduler;
+import org.terasology.apiculture.systems.ExtractorSystem;
+import org.terasology.apiculture.systems.InjectorSystem;
+import org.terasology.apiculture.systems.MachineAccessSystem;
+import org.terasology.engine.context.internal.ContextImpl;
+import org.terasology.engine.core.Time;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabData;
+import org.terasology.engine.entitySystem.prefab.internal.PojoPrefab;
+import org.terasology.engine.logic.common.DisplayNameComponent;
+import org.terasology.engine.logic.delay.DelayManager;
+import org.terasology.engine.logic.delay.DelayedActionTriggeredEvent;
+import org.terasology.engine.logic.inventory.ItemComponent;
+import org.terasology.engine.registry.InjectionHelper;
+import org.terasology.engine.world.generator.WorldGenerator;
+import org.terasology.genetics.components.GeneticsComponent;
+import org.terasology.gestalt.assets.AssetType;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.entitysystem.event.Event;
+import org.terasology.module.inventory.components.InventoryComponent;
+import org.terasology.module.inventory.events.BeforeItemPutInInventory;
+import org.terasology.module.inventory.events.InventorySlotChangedEvent;
+import org.terasology.module.inventory.events.InventorySlotStackSizeChangedEvent;
+import org.terasology.module.inventory.systems.InventoryManager;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * A headless stand-in for a game world running the apiculture systems, built on in-memory entity, inventory, and
+ * delay managers.
+ *
+ * Events sent to entities are dispatched directly to the matching system handlers, and game time only advances through
+ * {@link #step(long)}.
+ */
+public class BenchmarkWorld {
+    public static final String PRINCESS_PREFAB = "Apiculture:bee_princess";
+    public static final String DRONE_PREFAB = "Apiculture:bee_drone";
+    public static final String COMB_PREFAB = "Apiculture:comb";
+    public static final String SAMPLE_PREFAB = "Apiculture:genetic_sample";
+
+    /** The tick time of the bees created by this world, which have the fast speed genotype. */
+    public static final long TICK_TIME = 50000L;
+
+    private static final int SPECIES_COUNT = 3;
+
+    private final InMemoryEntityManager entityManager = new InMemoryEntityManager();
+    private final InMemoryInventoryManager inventoryManager = new InMemoryInventoryManager();
+    private final InMemoryDelayManager delayManager = new InMemoryDelayManager(this::getGameTimeInMs);
+
+    private final BeeRegistry beeRegistry = new BeeRegistry();
+    private final ApiaryTickScheduler tickScheduler = new ApiaryTickScheduler();
+    private final ApiaryStateStore stateStore = new ApiaryStateStore();
+    private final ApiaryMetrics metrics = new ApiaryMetrics();
+    private final PedigreeLog pedigreeLog = new PedigreeLog();
+    private final ApiarySystem apiarySystem = new ApiarySystem();
+    private final ExtractorSystem extractorSystem = new ExtractorSystem();
+    private final InjectorSystem injectorSystem = new InjectorSystem();
+    private final MachineAccessSystem accessSystem = new MachineAccessSystem();
+
+    private long gameTime;
+
+    public BenchmarkWorld() {
+        entityManager.setDispatcher(this::dispatch);
+        registerTemplates();
+
+        ContextImpl context = new ContextImpl();
+        context.put(EntityManager.class, entityManager.asEntityManager());
+        context.put(InventoryManager.class, inventoryManager);
+        context.put(DelayManager.class, delayManager);
+        context.put(Time.class, proxy(Time.class, "getGameTimeInMs", args -> gameTime));
+        context.put(WorldGenerator.class, proxy(WorldGenerator.class, "getWorldSeed", args -> "benchmark"));
+        context.put(BeeRegistry.class, beeRegistry);
+        context.put(ApiaryTickScheduler.class, tickScheduler);
+        context.put(ApiaryStateStore.class, stateStore);
+        context.put(ApiaryMetrics.class, metrics);
+        context.put(PedigreeLog.class, pedigreeLog);
+
+        for (Object system : Arrays.asList(beeRegistry, tickScheduler, stateStore, apiarySystem, extractorSystem, injectorSystem)) {
+            InjectionHelper.inject(system, context);
+        }
+        apiarySystem.initialise();
+        extractorSystem.initialise();
+        injectorSystem.initialise();
+
+        beeRegistry.setTraits(createTraits());
+        beeRegistry.setSpeciesTable(createSpeciesTable());
+        tickScheduler.setBudget(Integer.MAX_VALUE);
+    }
+
+    public long getGameTimeInMs() {
+        return gameTime;
+    }
+
+    public InMemoryEntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public InMemoryInventoryManager getInventoryManager() {
+        return inventoryManager;
+    }
+
+    public InMemoryDelayManager getDelayManager() {
+        return delayManager;
+    }
+
+    public BeeRegistry getBeeRegistry() {
+        return beeRegistry;
+    }
+
+    public ApiaryTickScheduler getTickScheduler() {
+        return tickScheduler;
+    }
+
+    /**
+     * Ends the current frame, then advances game time, firing every delayed action that came due and running a single
+     * game update.
+     *
+     * @param millis The time to advance, in milliseconds.
+     */
+    public void step(long millis) {
+        endFrame();
+        gameTime += millis;
+        delayManager.fireDue();
+        update(millis / 1000f);
+    }
+
+    /**
+     * Runs a game update without advancing game time, as at the end of the frame in which machines were changed, so
+     * that their processing is rescheduled.
+     */
+    public void endFrame() {
+        update(0f);
+    }
+
+    public EntityRef createApiary() {
+        EntityRef apiary = entityManager.create();
+        apiary.addComponent(new ApiaryComponent());
+        apiary.addComponent(new InventoryComponent(9));
+        return apiary;
+    }
+
+    public EntityRef createExtractor() {
+        return createExtractor(0);
+    }
+
+    public EntityRef createExtractor(int tier) {
+        EntityRef extractor = entityManager.create();
+        ExtractorComponent extractorComponent = new ExtractorComponent();
+        extractorComponent.tier = tier;
+        extractor.addComponent(extractorComponent);
+        extractor.addComponent(new InventoryComponent(1 + ExtractorSystem.SLOTS_OUTPUT.size()));
+        return extractor;
+    }
+
+    public EntityRef createInjector() {
+        EntityRef injector = entityManager.create();
+        injector.addComponent(new InjectorComponent());
+        injector.addComponent(new InventoryComponent(2 + InjectorSystem.SLOTS_OUTPUT.size()));
+        return injector;
+    }
+
+    /**
+     * Creates a bee with fast speed, short life, and double offspring genes, so a generation passes in few life ticks.
+     *
+     * @param type The type of bee; queens are not supported.
+     * @param species The species genotype of the bee.
+     * @return The new bee item.
+     */
+    public EntityRef createBee(BeeComponent.BeeType type, int species) {
+        EntityRef bee = entityManager.create(type == BeeComponent.BeeType.DRONE ? DRONE_PREFAB : PRINCESS_PREFAB);
+        GeneticsComponent genetics = new GeneticsComponent(4);
+        genetics.activeGenes.addAll(Arrays.asList(species, 2, 0, 2));
+        genetics.inactiveGenes.addAll(Arrays.asList(species, 2, 0, 2));
+        bee.addComponent(genetics);
+        beeRegistry.modifyItemForSpeciesAndType(bee);
+        return bee;
+    }
+
+    public EntityRef createSample(int locus, int genotype) {
+        EntityRef sample = entityManager.create(SAMPLE_PREFAB);
+        sample.addComponent(new LocusSampleComponent(locus, genotype));
+        return sample;
+    }
+
+    /**
+     * Puts an item into a slot of a machine, as a player would.
+     *
+     * @return Whether the item was accepted.
+     */
+    public boolean insert(EntityRef machine, int slot, EntityRef item) {
+        return inventoryManager.giveItem(machine, EntityRef.NULL, item, slot);
+    }
+
+    /**
+     * Empties every slot of a machine, destroying the items in them, without notifying any system.
+     */
+    public void clear(EntityRef machine) {
+        for (int slot = 0; slot < inventoryManager.getNumSlots(machine); slot++) {
+            inventoryManager.clearSlot(machine, slot);
+        }
+    }
+
+    /**
+     * Clears an apiary whose queen has given birth, and stocks it with a new princess and drone.
+     *
+     * @return Whether the apiary needed restocking.
+     */
+    public boolean restockApiary(EntityRef apiary, int species) {
+        if (inventoryManager.getItemInSlot(apiary, ApiarySystem.SLOT_FEMALE).exists()) {
+            return false;
+        }
+        clear(apiary);
+        insert(apiary, ApiarySystem.SLOT_FEMALE, createBee(BeeComponent.BeeType.PRINCESS, species));
+        insert(apiary, ApiarySystem.SLOT_MALE, createBee(BeeComponent.BeeType.DRONE, species));
+        return true;
+    }
+
+    private void update(float delta) {
+        apiarySystem.update(delta);
+        extractorSystem.update(delta);
+        injectorSystem.update(delta);
+    }
+
+    private void dispatch(EntityRef entity, Event event) {
+        ApiaryComponent apiary = entity.getComponent(ApiaryComponent.class);
+        ExtractorComponent extractor = entity.getComponent(ExtractorComponent.class);
+        InjectorComponent injector = entity.getComponent(InjectorComponent.class);
+
+        if (event instanceof BeforeItemPutInInventory) {
+            BeforeItemPutInInventory beforeEvent = (BeforeItemPutInInventory) event;
+            if (apiary != null) {
+                accessSystem.beforeItemPutIntoApiary(beforeEvent, entity, apiary);
+            } else if (extractor != null) {
+                accessSystem.beforeItemPutIntoExtractor(beforeEvent, entity, extractor);
+            } else if (injector != null) {
+                accessSystem.beforeItemPutIntoInjector(beforeEvent, entity, injector);
+            }
+        } else if (event instanceof InventorySlotChangedEvent) {
+            InventorySlotChangedEvent changedEvent = (InventorySlotChangedEvent) event;
+            if (apiary != null) {
+                apiarySystem.onApiaryInventoryChanged(changedEvent, entity, apiary);
+            } else if (extractor != null) {
+                extractorSystem.onExtractorItemChanged(changedEvent, entity, extractor);
+            } else if (injector != null) {
+                injectorSystem.onInjectorItemChanged(changedEvent, entity, injector);
+            }
+        } else if (event instanceof InventorySlotStackSizeChangedEvent) {
+            InventorySlotStackSizeChangedEvent stackSizeEvent = (InventorySlotStackSizeChangedEvent) event;
+            if (apiary != null) {
+                apiarySystem.onApiaryStackSizeChanged(stackSizeEvent, entity, apiary);
+            } else if (extractor != null) {
+                extractorSystem.onExtractorStackSizeChanged(stackSizeEvent, entity, extractor);
+            } else if (injector != null) {
+                injectorSystem.onInjectorStackSizeChanged(stackSizeEvent, entity, injector);
+            }
+        } else if (event instanceof DelayedActionTriggeredEvent) {
+            DelayedActionTriggeredEvent delayedEvent = (DelayedActionTriggeredEvent) event;
+            if (apiary != null) {
+                apiarySystem.onApiaryEvent(delayedEvent, entity, apiary);
+            } else if (extractor != null) {
+                extractorSystem.onExtractorEvent(delayedEvent, entity, extractor);
+            } else if (injector != null) {
+                injectorSystem.onInjectorEvent(delayedEvent, entity, injector);
+            }
+        }
+    }
+
+    private void registerTemplates() {
+        entityManager.registerTemplate(PRINCESS_PREFAB, entity -> {
+            entity.addComponent(new ItemComponent());
+            BeeComponent beeComponent = new BeeComponent();
+            beeComponent.type = BeeComponent.BeeType.PRINCESS;
+            entity.addComponent(beeComponent);
+        });
+        entityManager.registerTemplate(DRONE_PREFAB, entity -> {
+            entity.addComponent(new ItemComponent());
+            BeeComponent beeComponent = new BeeComponent();
+            beeComponent.type = BeeComponent.BeeType.DRONE;
+            entity.addComponent(beeComponent);
+        });
+        entityManager.registerTemplate(COMB_PREFAB, entity -> {
+            ItemComponent itemComponent = new ItemComponent();
+            itemComponent.stackId = COMB_PREFAB;
+            entity.addComponent(itemComponent);
+            DisplayNameComponent displayNameComponent = new DisplayNameComponent();
+            displayNameComponent.name = "Honeycomb";
+            entity.addComponent(displayNameComponent);
+        });
+        entityManager.registerTemplate(SAMPLE_PREFAB, entity -> {
+            ItemComponent itemComponent = new ItemComponent();
+            itemComponent.stackId = SAMPLE_PREFAB;
+            entity.addComponent(itemComponent);
+        });
+    }
+
+    private static BeeTraitsComponent createTraits() {
+        BeeTraitsComponent traits = new BeeTraitsComponent();
+        traits.lifespans.addAll(Arrays.asList(3, 6, 9));
+        traits.tickTimes.addAll(Arrays.asList(100000L, 75000L, TICK_TIME));
+        traits.speedNames.addAll(Arrays.asList("Slow Speed", "Normal Speed", "Fast Speed"));
+        traits.lifespanNames.addAll(Arrays.asList("Short Life", "Normal Life", "Long Life"));
+        traits.offspringCountNames.addAll(Arrays.asList("", "Single Offspring", "Double Offspring", "", "Quadruple Offspring"));
+        return traits;
+    }
+
+    private static BeeSpeciesTable createSpeciesTable() {
+        AssetType<Prefab, PrefabData> prefabType = new AssetType<>(Prefab.class, PojoPrefab::new);
+        Prefab comb = prefabType.loadAsset(new ResourceUrn(COMB_PREFAB), new PrefabData());
+
+        boolean[] defined = new boolean[SPECIES_COUNT];
+        String[] names = new String[SPECIES_COUNT];
+        float[] produceChances = new float[SPECIES_COUNT];
+        Prefab[] producePrefabs = new Prefab[SPECIES_COUNT];
+        BeeAppearance[] appearances = new BeeAppearance[BeeSpeciesTable.appearanceCount(SPECIES_COUNT)];
+        for (int species = 0; species < SPECIES_COUNT; species++) {
+            defined[species] = true;
+            names[species] = "Species " + species;
+            produceChances[species] = species == 2 ? 0.5f : 0.25f;
+            producePrefabs[species] = comb;
+            for (BeeComponent.BeeType type : BeeComponent.BeeType.values()) {
+                appearances[BeeSpeciesTable.appearanceIndex(species, type)] = new BeeAppearance(null,
+                        type == BeeComponent.BeeType.DRONE ? BeeRegistry.DRONE_STACK_ID : null, species + " " + type);
+            }
+        }
+        return new BeeSpeciesTable(defined, names, produceChances, producePrefabs, appearances);
+    }
+
+    private static <T> T proxy(Class<T> type, String methodName, Function<Object[], Object> implementation) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (instance, method, args) -> {
+            if (method.getName().equals(methodName)) {
+                return implementation.apply(args);
+            }
+            throw new UnsupportedOperationException("Not supported by the benchmark world: " + method);
+        }));
+    }
+}
@@ -0,0 +1,62 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.genetics.PackedGenome;
+import org.terasology.apiculture.simulation.BreedingSimulator;
+import org.terasology.apiculture.simulation.SimulationResult;
+import org.terasology.genetics.components.GeneticsComponent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the headless breeding simulator over a farm of apiaries stocked with a species A princess and a species B drone,
+ * so that the species C mutation comes into play.
+ *
+ * Each operation simulates {@code generations} generations in every apiary, so multiplying the throughput by both
+ * parameters gives the generations simulated per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BreedingSimulatorBenchmark {
+    @Param({"1", "1000", "100000"})
+    public int apiaryCount;
+
+    @Param({"100"})
+    public int generations;
+
+    private BreedingSimulator simulator;
+    private long princess;
+    private long drone;
+    private long seed;
+
+    @Setup
+    public void setup() {
+        BenchmarkWorld world = new BenchmarkWorld();
+        simulator = new BreedingSimulator(world.getBeeRegistry());
+        princess = PackedGenome.pack(world.createBee(BeeComponent.BeeType.PRINCESS, 0).getComponent(GeneticsComponent.class));
+        drone = PackedGenome.pack(world.createBee(BeeComponent.BeeType.DRONE, 1).getComponent(GeneticsComponent.class));
+    }
+
+    @Benchmark
+    public long simulate() {
+        SimulationResult result = simulator.run(princess, drone, apiaryCount, generations, seed++);
+        return result.getBirths();
+    }
+}
@@ -0,0 +1,84 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.systems.ApiarySystem;
+import org.terasology.apiculture.systems.GenotypeIndex;
+import org.terasology.apiculture.systems.GenotypeQuery;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.genetics.components.GeneticsComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the bees of one species with one lifespan among a population of bees of three species and three lifespans.
+ *
+ * The scan benchmark reproduces looking every bee's genetics up, as querying without the {@link GenotypeIndex} would.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GenotypeIndexBenchmark {
+    @Param({"1000", "100000"})
+    public int beeCount;
+
+    private final GenotypeIndex index = new GenotypeIndex();
+    private final GenotypeQuery query = new GenotypeQuery()
+            .with(ApiarySystem.LOCUS_SPECIES, 1)
+            .with(ApiarySystem.LOCUS_LIFESPAN, 2);
+    private final List<EntityRef> results = new ArrayList<>();
+    private EntityRef[] bees;
+
+    @Setup
+    public void setup() {
+        BenchmarkWorld world = new BenchmarkWorld();
+        bees = new EntityRef[beeCount];
+        for (int i = 0; i < beeCount; i++) {
+            bees[i] = world.createBee(BeeComponent.BeeType.DRONE, i % 3);
+            GeneticsComponent genetics = bees[i].getComponent(GeneticsComponent.class);
+            genetics.activeGenes.set(ApiarySystem.LOCUS_LIFESPAN, i / 3 % 3);
+            bees[i].saveComponent(genetics);
+            index.update(bees[i]);
+        }
+    }
+
+    @Benchmark
+    public int scan() {
+        results.clear();
+        for (EntityRef bee : bees) {
+            GeneticsComponent genetics = bee.getComponent(GeneticsComponent.class);
+            if (genetics.activeGenes.get(ApiarySystem.LOCUS_SPECIES) == 1 && genetics.activeGenes.get(ApiarySystem.LOCUS_LIFESPAN) == 2) {
+                results.add(bee);
+            }
+        }
+        return results.size();
+    }
+
+    @Benchmark
+    public int find() {
+        results.clear();
+        return index.find(query, results);
+    }
+
+    @Benchmark
+    public int count() {
+        return index.count(query);
+    }
+}
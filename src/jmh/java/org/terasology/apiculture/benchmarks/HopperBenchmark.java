@@ -0,0 +1,88 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.systems.ApiarySystem;
+import org.terasology.apiculture.systems.ExtractorSystem;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds machines through their input slots at high rates, as automated hoppers would, and ends the frame.
+ *
+ * Each operation swaps a number of drones through the drone slot of every apiary, each stocked with a princess, and
+ * through the input of every extractor, within a single frame. Only the last drone stays in place; the machines'
+ * processing is then rescheduled once at the end of the frame.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HopperBenchmark {
+    @Param({"1000"})
+    public int machineCount;
+
+    @Param({"1", "16", "64"})
+    public int insertionsPerFrame;
+
+    private BenchmarkWorld world;
+    private EntityRef[] apiaries;
+    private EntityRef[] extractors;
+
+    @Setup
+    public void setup() {
+        world = new BenchmarkWorld();
+        apiaries = new EntityRef[machineCount];
+        extractors = new EntityRef[machineCount];
+        for (int i = 0; i < machineCount; i++) {
+            apiaries[i] = world.createApiary();
+            world.insert(apiaries[i], ApiarySystem.SLOT_FEMALE, world.createBee(BeeComponent.BeeType.PRINCESS, i % 3));
+            extractors[i] = world.createExtractor();
+        }
+        world.endFrame();
+    }
+
+    @Benchmark
+    public long feedApiaries() {
+        for (EntityRef apiary : apiaries) {
+            feed(apiary, ApiarySystem.SLOT_MALE);
+        }
+        world.endFrame();
+        return world.getDelayManager().getOperationCount();
+    }
+
+    @Benchmark
+    public long feedExtractors() {
+        for (EntityRef extractor : extractors) {
+            feed(extractor, ExtractorSystem.SLOT_INPUT);
+        }
+        world.endFrame();
+        return world.getDelayManager().getOperationCount();
+    }
+
+    private void feed(EntityRef machine, int slot) {
+        InMemoryInventoryManager inventoryManager = world.getInventoryManager();
+        for (int i = 0; i < insertionsPerFrame; i++) {
+            EntityRef previous = inventoryManager.getItemInSlot(machine, slot);
+            if (previous.exists()) {
+                inventoryManager.removeItem(machine, EntityRef.NULL, previous, true);
+            }
+            world.insert(machine, slot, world.createBee(BeeComponent.BeeType.DRONE, i % 3));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.logic.delay.DelayManager;
+import org.terasology.engine.logic.delay.DelayedActionTriggeredEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-memory stand-in for the engine's delay manager, firing delayed actions when {@link #fireDue()} is called.
+ *
+ * Periodic actions are not supported, as the apiculture systems do not use them.
+ */
+public class InMemoryDelayManager implements DelayManager {
+    private final Map<EntityRef, Map<String, Long>> actions = new HashMap<>();
+    private final List<EntityRef> dueEntities = new ArrayList<>();
+    private final List<String> dueActions = new ArrayList<>();
+    private final LongSupplier clock;
+    private long operationCount;
+
+    /**
+     * @param clock The source of the current game time, in milliseconds.
+     */
+    public InMemoryDelayManager(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void addDelayedAction(EntityRef entity, String actionId, long delay) {
+        operationCount++;
+        actions.computeIfAbsent(entity, key -> new HashMap<>(4)).put(actionId, clock.getAsLong() + delay);
+    }
+
+    @Override
+    public void addPeriodicAction(EntityRef entity, String actionId, long initialDelay, long period) {
+        throw new UnsupportedOperationException("Periodic actions are not supported by the benchmark delay manager");
+    }
+
+    @Override
+    public void cancelDelayedAction(EntityRef entity, String actionId) {
+        operationCount++;
+        Map<String, Long> entityActions = actions.get(entity);
+        if (entityActions != null) {
+            entityActions.remove(actionId);
+        }
+    }
+
+    @Override
+    public void cancelPeriodicAction(EntityRef entity, String actionId) {
+    }
+
+    @Override
+    public boolean hasDelayedAction(EntityRef entity, String actionId) {
+        Map<String, Long> entityActions = actions.get(entity);
+        return entityActions != null && entityActions.containsKey(actionId);
+    }
+
+    @Override
+    public boolean hasPeriodicAction(EntityRef entity, String actionId) {
+        return false;
+    }
+
+    /**
+     * @return The number of delayed actions added or cancelled so far.
+     */
+    public long getOperationCount() {
+        return operationCount;
+    }
+
+    /**
+     * @return The number of pending delayed actions.
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (Map<String, Long> entityActions : actions.values()) {
+            count += entityActions.size();
+        }
+        return count;
+    }
+
+    /**
+     * Fires every delayed action that has come due, sending a {@link DelayedActionTriggeredEvent} to its entity.
+     *
+     * @return The number of actions fired.
+     */
+    public int fireDue() {
+        long now = clock.getAsLong();
+        for (Iterator<Map.Entry<EntityRef, Map<String, Long>>> entries = actions.entrySet().iterator(); entries.hasNext();) {
+            Map.Entry<EntityRef, Map<String, Long>> entry = entries.next();
+            for (Iterator<Map.Entry<String, Long>> entityActions = entry.getValue().entrySet().iterator(); entityActions.hasNext();) {
+                Map.Entry<String, Long> action = entityActions.next();
+                if (action.getValue() <= now) {
+                    dueEntities.add(entry.getKey());
+                    dueActions.add(action.getKey());
+                    entityActions.remove();
+                }
+            }
+            if (entry.getValue().isEmpty()) {
+                entries.remove();
+            }
+        }
+
+        int fired = dueEntities.size();
+        for (int i = 0; i < fired; i++) {
+            dueEntities.get(i).send(new DelayedActionTriggeredEvent(dueActions.get(i)));
+        }
+        dueEntities.clear();
+        dueActions.clear();
+        return fired;
+    }
+}
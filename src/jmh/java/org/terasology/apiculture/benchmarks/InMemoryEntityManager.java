@@ -0,0 +1,137 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.event.Event;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A minimal in-memory stand-in for the engine's entity manager.
+ *
+ * Prefabs are replaced by templates, which add freshly created components to a new entity. Only the entity creation and
+ * lookup methods used by the apiculture systems are supported; the {@link EntityManager} view is a dynamic proxy, whose
+ * dispatch overhead is included in every benchmark alike.
+ */
+public class InMemoryEntityManager {
+    private final Map<Long, InMemoryEntityRef> entities = new HashMap<>();
+    private final Map<String, Consumer<EntityRef>> templates = new HashMap<>();
+    private final EntityManager proxy = (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+            new Class[]{EntityManager.class}, (instance, method, args) -> invoke(method, args));
+
+    private BiConsumer<EntityRef, Event> dispatcher = (entity, event) -> { };
+    private long nextId = 1;
+
+    /**
+     * Registers a template standing in for a prefab.
+     *
+     * @param prefab The urn of the prefab.
+     * @param template A function adding the prefab's components to a new entity.
+     */
+    public void registerTemplate(String prefab, Consumer<EntityRef> template) {
+        templates.put(prefab, template);
+    }
+
+    /**
+     * @param dispatcher The function receiving every event sent to an entity of this entity manager.
+     */
+    public void setDispatcher(BiConsumer<EntityRef, Event> dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * @return An {@link EntityManager} view of this entity manager.
+     */
+    public EntityManager asEntityManager() {
+        return proxy;
+    }
+
+    public EntityRef create() {
+        InMemoryEntityRef entity = new InMemoryEntityRef(this, nextId++);
+        entities.put(entity.getId(), entity);
+        return entity;
+    }
+
+    public EntityRef create(Iterable<? extends Component> components) {
+        EntityRef entity = create();
+        for (Component component : components) {
+            entity.addComponent(component);
+        }
+        return entity;
+    }
+
+    public EntityRef create(String prefab) {
+        Consumer<EntityRef> template = templates.get(prefab);
+        if (template == null) {
+            throw new IllegalArgumentException("No template registered for prefab " + prefab);
+        }
+        EntityRef entity = create();
+        template.accept(entity);
+        return entity;
+    }
+
+    public EntityRef create(Prefab prefab) {
+        InMemoryEntityRef entity = (InMemoryEntityRef) create(prefab.getUrn().toString());
+        entity.setParentPrefab(prefab);
+        return entity;
+    }
+
+    public EntityRef getEntity(long id) {
+        EntityRef entity = entities.get(id);
+        return entity != null ? entity : EntityRef.NULL;
+    }
+
+    public int getActiveEntityCount() {
+        return entities.size();
+    }
+
+    void destroyed(InMemoryEntityRef entity) {
+        entities.remove(entity.getId());
+    }
+
+    void dispatch(EntityRef entity, Event event) {
+        dispatcher.accept(entity, event);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object invoke(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "create":
+                if (args == null || args.length == 0) {
+                    return create();
+                } else if (args.length == 1 && args[0] instanceof String) {
+                    return create((String) args[0]);
+                } else if (args.length == 1 && args[0] instanceof Prefab) {
+                    return create((Prefab) args[0]);
+                } else if (args.length == 1 && args[0] instanceof Component[]) {
+                    return create(Arrays.asList((Component[]) args[0]));
+                } else if (args.length == 1 && args[0] instanceof Iterable) {
+                    return create((Iterable<Component>) args[0]);
+                }
+                break;
+            case "getEntity":
+                return getEntity((Long) args[0]);
+            case "getActiveEntityCount":
+                return getActiveEntityCount();
+            case "hashCode":
+                return System.identityHashCode(this);
+            case "equals":
+                return args[0] == proxy;
+            case "toString":
+                return "InMemoryEntityManager";
+            default:
+                break;
+        }
+        throw new UnsupportedOperationException("Not supported by the benchmark entity manager: " + method);
+    }
+}
@@ -0,0 +1,178 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.event.Event;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An entity whose components are held in a plain map, owned by an {@link InMemoryEntityManager}.
+ *
+ * Events sent to the entity are dispatched straight to the benchmarked systems by the owning {@link BenchmarkWorld}.
+ */
+public class InMemoryEntityRef extends EntityRef {
+    private final InMemoryEntityManager entityManager;
+    private final long id;
+    private final Map<Class<? extends Component>, Component> components = new HashMap<>();
+    private Prefab parentPrefab;
+    private boolean exists = true;
+
+    InMemoryEntityRef(InMemoryEntityManager entityManager, long id) {
+        this.entityManager = entityManager;
+        this.id = id;
+    }
+
+    @Override
+    public EntityRef copy() {
+        return entityManager.create(components.values());
+    }
+
+    @Override
+    public boolean exists() {
+        return exists;
+    }
+
+    @Override
+    public boolean isActive() {
+        return exists;
+    }
+
+    @Override
+    public void destroy() {
+        if (exists) {
+            exists = false;
+            components.clear();
+            entityManager.destroyed(this);
+        }
+    }
+
+    @Override
+    public <T extends Event> T send(T event) {
+        if (exists) {
+            entityManager.dispatch(this, event);
+        }
+        return event;
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    @Override
+    public void setPersistent(boolean persistent) {
+    }
+
+    @Override
+    public boolean isAlwaysRelevant() {
+        return false;
+    }
+
+    @Override
+    public void setAlwaysRelevant(boolean alwaysRelevant) {
+    }
+
+    @Override
+    public EntityRef getOwner() {
+        return EntityRef.NULL;
+    }
+
+    @Override
+    public void setOwner(EntityRef owner) {
+    }
+
+    @Override
+    public Prefab getParentPrefab() {
+        return parentPrefab;
+    }
+
+    void setParentPrefab(Prefab parentPrefab) {
+        this.parentPrefab = parentPrefab;
+    }
+
+    @Override
+    public String toFullDescription() {
+        return "InMemoryEntityRef{id = " + id + ", components = " + components.keySet() + "}";
+    }
+
+    @Override
+    public boolean hasComponent(Class<? extends Component> component) {
+        return components.containsKey(component);
+    }
+
+    @Override
+    public boolean hasAnyComponents(List<Class<? extends Component>> filterComponents) {
+        for (Class<? extends Component> component : filterComponents) {
+            if (components.containsKey(component)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasAllComponents(List<Class<? extends Component>> filterComponents) {
+        for (Class<? extends Component> component : filterComponents) {
+            if (!components.containsKey(component)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public <T extends Component> T getComponent(Class<T> componentClass) {
+        return componentClass.cast(components.get(componentClass));
+    }
+
+    @Override
+    public Iterable<Component> iterateComponents() {
+        return components.values();
+    }
+
+    @Override
+    public <T extends Component> T addComponent(T component) {
+        if (exists) {
+            components.put(component.getClass(), component);
+        }
+        return component;
+    }
+
+    @Override
+    public void removeComponent(Class<? extends Component> componentClass) {
+        components.remove(componentClass);
+    }
+
+    @Override
+    public void saveComponent(Component component) {
+        if (exists) {
+            components.put(component.getClass(), component);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EntityRef && ((EntityRef) o).getId() == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryEntityRef{" + id + "}";
+    }
+}
@@ -0,0 +1,205 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.logic.inventory.ItemComponent;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.module.inventory.components.InventoryComponent;
+import org.terasology.module.inventory.components.ItemDifferentiating;
+import org.terasology.module.inventory.events.BeforeItemPutInInventory;
+import org.terasology.module.inventory.events.InventorySlotChangedEvent;
+import org.terasology.module.inventory.events.InventorySlotStackSizeChangedEvent;
+import org.terasology.module.inventory.systems.InventoryManager;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An in-memory stand-in for the Inventory module's inventory manager, writing directly into {@link InventoryComponent}s.
+ *
+ * Items are stacked following the same rules as the Inventory module, and the same inventory events are sent, so the
+ * benchmarked systems observe the same event traffic as in game. Only insertion is supported.
+ */
+public class InMemoryInventoryManager implements InventoryManager {
+    @Override
+    public boolean canStackTogether(EntityRef itemA, EntityRef itemB) {
+        ItemComponent itemComponentA = itemA.getComponent(ItemComponent.class);
+        ItemComponent itemComponentB = itemB.getComponent(ItemComponent.class);
+        if (itemComponentA == null || itemComponentB == null || itemComponentA.stackId == null
+                || itemComponentA.stackId.isEmpty() || !itemComponentA.stackId.equals(itemComponentB.stackId)) {
+            return false;
+        }
+        for (Component component : itemA.iterateComponents()) {
+            if (component instanceof ItemDifferentiating && !component.equals(itemB.getComponent(component.getClass()))) {
+                return false;
+            }
+        }
+        for (Component component : itemB.iterateComponents()) {
+            if (component instanceof ItemDifferentiating && !itemA.hasComponent(component.getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getStackSize(EntityRef item) {
+        ItemComponent itemComponent = item.getComponent(ItemComponent.class);
+        return itemComponent != null ? itemComponent.stackCount : 0;
+    }
+
+    @Override
+    public EntityRef getItemInSlot(EntityRef inventoryEntity, int slot) {
+        InventoryComponent inventory = inventoryEntity.getComponent(InventoryComponent.class);
+        return inventory != null && slot >= 0 && slot < inventory.itemSlots.size() ? inventory.itemSlots.get(slot) : EntityRef.NULL;
+    }
+
+    @Override
+    public int findSlotWithItem(EntityRef inventoryEntity, EntityRef item) {
+        InventoryComponent inventory = inventoryEntity.getComponent(InventoryComponent.class);
+        return inventory != null ? inventory.itemSlots.indexOf(item) : -1;
+    }
+
+    @Override
+    public int getNumSlots(EntityRef inventoryEntity) {
+        InventoryComponent inventory = inventoryEntity.getComponent(InventoryComponent.class);
+        return inventory != null ? inventory.itemSlots.size() : 0;
+    }
+
+    @Override
+    public boolean giveItem(EntityRef inventory, EntityRef instigator, EntityRef item) {
+        for (int slot = 0; slot < getNumSlots(inventory); slot++) {
+            if (giveItem(inventory, instigator, item, slot)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean giveItem(EntityRef inventory, EntityRef instigator, EntityRef item, int slot) {
+        return giveItem(inventory, instigator, item, Collections.singletonList(slot));
+    }
+
+    @Override
+    public boolean giveItem(EntityRef inventory, EntityRef instigator, EntityRef item, List<Integer> slots) {
+        InventoryComponent inventoryComponent = inventory.getComponent(InventoryComponent.class);
+        ItemComponent itemComponent = item.getComponent(ItemComponent.class);
+        if (inventoryComponent == null || itemComponent == null) {
+            return false;
+        }
+
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get(i);
+            EntityRef existing = inventoryComponent.itemSlots.get(slot);
+            if (!existing.exists() || !canStackTogether(existing, item)) {
+                continue;
+            }
+            ItemComponent existingComponent = existing.getComponent(ItemComponent.class);
+            int oldSize = existingComponent.stackCount;
+            int moved = Math.min(existingComponent.maxStackSize - oldSize, itemComponent.stackCount);
+            if (moved <= 0 || !putInto(inventory, instigator, item, slot)) {
+                continue;
+            }
+
+            existingComponent.stackCount = (byte) (oldSize + moved);
+            existing.saveComponent(existingComponent);
+            inventory.send(new InventorySlotStackSizeChangedEvent(slot, oldSize, existingComponent.stackCount));
+            itemComponent.stackCount = (byte) (itemComponent.stackCount - moved);
+            if (itemComponent.stackCount == 0) {
+                item.destroy();
+                return true;
+            }
+            item.saveComponent(itemComponent);
+        }
+
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get(i);
+            EntityRef existing = inventoryComponent.itemSlots.get(slot);
+            if (!existing.exists() && putInto(inventory, instigator, item, slot)) {
+                inventoryComponent.itemSlots.set(slot, item);
+                inventory.saveComponent(inventoryComponent);
+                inventory.send(new InventorySlotChangedEvent(slot, existing, item));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public EntityRef removeItem(EntityRef inventory, EntityRef instigator, EntityRef item, boolean destroyRemoved) {
+        return removeItem(inventory, instigator, item, destroyRemoved, getStackSize(item));
+    }
+
+    @Override
+    public EntityRef removeItem(EntityRef inventory, EntityRef instigator, EntityRef item, boolean destroyRemoved, int count) {
+        InventoryComponent inventoryComponent = inventory.getComponent(InventoryComponent.class);
+        ItemComponent itemComponent = item.getComponent(ItemComponent.class);
+        int slot = findSlotWithItem(inventory, item);
+        if (slot < 0 || itemComponent == null || count <= 0) {
+            return EntityRef.NULL;
+        }
+
+        if (count < itemComponent.stackCount) {
+            if (!destroyRemoved) {
+                throw new UnsupportedOperationException("Splitting a stack off an item is not supported");
+            }
+            int oldSize = itemComponent.stackCount;
+            itemComponent.stackCount = (byte) (oldSize - count);
+            item.saveComponent(itemComponent);
+            inventory.send(new InventorySlotStackSizeChangedEvent(slot, oldSize, itemComponent.stackCount));
+            return EntityRef.NULL;
+        }
+
+        inventoryComponent.itemSlots.set(slot, EntityRef.NULL);
+        inventory.saveComponent(inventoryComponent);
+        inventory.send(new InventorySlotChangedEvent(slot, item, EntityRef.NULL));
+        if (destroyRemoved) {
+            item.destroy();
+            return EntityRef.NULL;
+        }
+        return item;
+    }
+
+    @Override
+    public EntityRef removeItem(EntityRef inventory, EntityRef instigator, List<EntityRef> items, boolean destroyRemoved) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public EntityRef removeItem(EntityRef inventory, EntityRef instigator, List<EntityRef> items, boolean destroyRemoved, int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean moveItem(EntityRef fromInventory, EntityRef instigator, int slotFrom, EntityRef toInventory, int slotTo, int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean moveItemToSlots(EntityRef instigator, EntityRef fromInventory, int slotFrom, EntityRef toInventory, List<Integer> toSlots) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean switchItem(EntityRef fromInventory, EntityRef instigator, int slotFrom, EntityRef toInventory, int slotTo) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Empties a slot of an inventory, destroying the item in it, without notifying any system.
+     *
+     * @param inventory The inventory to clear the slot of.
+     * @param slot The slot to clear.
+     */
+    public void clearSlot(EntityRef inventory, int slot) {
+        InventoryComponent inventoryComponent = inventory.getComponent(InventoryComponent.class);
+        inventoryComponent.itemSlots.get(slot).destroy();
+        inventoryComponent.itemSlots.set(slot, EntityRef.NULL);
+    }
+
+    private boolean putInto(EntityRef inventory, EntityRef instigator, EntityRef item, int slot) {
+        return !inventory.send(new BeforeItemPutInInventory(instigator, item, slot)).isConsumed();
+    }
+}
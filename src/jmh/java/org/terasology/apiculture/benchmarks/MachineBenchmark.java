@@ -0,0 +1,105 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.components.ExtractorComponent;
+import org.terasology.apiculture.systems.ApiarySystem;
+import org.terasology.apiculture.systems.ExtractorSystem;
+import org.terasology.apiculture.systems.InjectorSystem;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.logic.inventory.ItemComponent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs full extraction and injection cycles across a number of extractors and injectors.
+ *
+ * Each operation fills every machine's inputs, advances game time until processing completes, and empties the machines.
+ * The bulk extraction benchmark processes as many bees as the regular one, through fewer extractors of the highest tier.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MachineBenchmark {
+    @Param({"1", "1000", "100000"})
+    public int machineCount;
+
+    private BenchmarkWorld world;
+    private EntityRef[] extractors;
+    private EntityRef[] bulkExtractors;
+    private EntityRef[] injectors;
+
+    @Setup
+    public void setup() {
+        world = new BenchmarkWorld();
+        extractors = new EntityRef[machineCount];
+        injectors = new EntityRef[machineCount];
+        for (int i = 0; i < machineCount; i++) {
+            extractors[i] = world.createExtractor();
+            injectors[i] = world.createInjector();
+        }
+
+        int batchSize = 1 << ExtractorComponent.MAX_TIER;
+        bulkExtractors = new EntityRef[(machineCount + batchSize - 1) / batchSize];
+        for (int i = 0; i < bulkExtractors.length; i++) {
+            bulkExtractors[i] = world.createExtractor(ExtractorComponent.MAX_TIER);
+        }
+    }
+
+    @Benchmark
+    public int extract() {
+        for (int i = 0; i < extractors.length; i++) {
+            world.insert(extractors[i], ExtractorSystem.SLOT_INPUT, world.createBee(BeeComponent.BeeType.DRONE, i % 3));
+        }
+        world.step(ExtractorSystem.EXTRACT_TIME);
+        for (EntityRef extractor : extractors) {
+            world.clear(extractor);
+        }
+        return world.getEntityManager().getActiveEntityCount();
+    }
+
+    @Benchmark
+    public int bulkExtract() {
+        int batchSize = 1 << ExtractorComponent.MAX_TIER;
+        for (int i = 0; i < bulkExtractors.length; i++) {
+            EntityRef drones = world.createBee(BeeComponent.BeeType.DRONE, i % 3);
+            ItemComponent itemComponent = drones.getComponent(ItemComponent.class);
+            itemComponent.stackCount = (byte) Math.min(batchSize, machineCount - i * batchSize);
+            drones.saveComponent(itemComponent);
+            world.insert(bulkExtractors[i], ExtractorSystem.SLOT_INPUT, drones);
+        }
+        world.step(ExtractorSystem.EXTRACT_TIME);
+        for (EntityRef extractor : bulkExtractors) {
+            world.clear(extractor);
+        }
+        return world.getEntityManager().getActiveEntityCount();
+    }
+
+    @Benchmark
+    public int inject() {
+        for (int i = 0; i < injectors.length; i++) {
+            world.insert(injectors[i], InjectorSystem.SLOT_INPUT, world.createSample(ApiarySystem.LOCUS_SPECIES, (i + 1) % 3));
+            world.insert(injectors[i], InjectorSystem.SLOT_BEE, world.createBee(BeeComponent.BeeType.DRONE, i % 3));
+        }
+        world.step(InjectorSystem.INJECT_TIME);
+        for (EntityRef injector : injectors) {
+            world.clear(injector);
+        }
+        return world.getEntityManager().getActiveEntityCount();
+    }
+}
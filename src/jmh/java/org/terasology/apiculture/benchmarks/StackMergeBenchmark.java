@@ -0,0 +1,159 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.components.LocusSampleComponent;
+import org.terasology.apiculture.components.MatedComponent;
+import org.terasology.apiculture.genetics.PackedGenome;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.genetics.components.GeneticsComponent;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the stack-merge check the inventory runs when moving items onto each other: comparing, and hashing, the
+ * {@code ItemDifferentiating} components of two items.
+ *
+ * The legacy benchmark reproduces the previous implementations, which hashed through {@code Objects.hash} varargs and
+ * compared queens through their mate's container entity. Run with {@code -prof gc} to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StackMergeBenchmark {
+    private static final int PAIR_COUNT = 256;
+
+    private final EntityRef[] left = new EntityRef[PAIR_COUNT];
+    private final EntityRef[] right = new EntityRef[PAIR_COUNT];
+
+    @Setup
+    public void setup() {
+        BenchmarkWorld world = new BenchmarkWorld();
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            switch (i % 3) {
+                case 0:
+                    left[i] = world.createBee(BeeComponent.BeeType.DRONE, i % 2);
+                    right[i] = world.createBee(BeeComponent.BeeType.DRONE, 0);
+                    break;
+                case 1:
+                    left[i] = createQueen(world, i % 2);
+                    right[i] = createQueen(world, 0);
+                    break;
+                default:
+                    left[i] = world.createSample(i % 4, 2);
+                    right[i] = world.createSample(0, 2);
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public int legacyMergeCheck() {
+        int result = 0;
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            result += legacyHash(left[i]);
+            if (legacyIsSameItem(left[i], right[i])) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int mergeCheck() {
+        int result = 0;
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            result += hash(left[i]);
+            if (isSameItem(left[i], right[i])) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static EntityRef createQueen(BenchmarkWorld world, int species) {
+        EntityRef queen = world.createBee(BeeComponent.BeeType.PRINCESS, species);
+        BeeComponent beeComponent = queen.getComponent(BeeComponent.class);
+        beeComponent.type = BeeComponent.BeeType.QUEEN;
+        queen.saveComponent(beeComponent);
+
+        GeneticsComponent mateGenetics = world.createBee(BeeComponent.BeeType.DRONE, species).getComponent(GeneticsComponent.class);
+        MatedComponent matedComponent = new MatedComponent(PackedGenome.pack(mateGenetics), 3, BenchmarkWorld.TICK_TIME, 1L);
+        matedComponent.container = world.getEntityManager().create(Collections.singletonList(mateGenetics));
+        queen.addComponent(matedComponent);
+        return queen;
+    }
+
+    private static boolean isSameItem(EntityRef a, EntityRef b) {
+        return Objects.equals(a.getComponent(BeeComponent.class), b.getComponent(BeeComponent.class))
+                && Objects.equals(a.getComponent(MatedComponent.class), b.getComponent(MatedComponent.class))
+                && Objects.equals(a.getComponent(LocusSampleComponent.class), b.getComponent(LocusSampleComponent.class));
+    }
+
+    private static int hash(EntityRef item) {
+        return Objects.hashCode(item.getComponent(BeeComponent.class))
+                + Objects.hashCode(item.getComponent(MatedComponent.class))
+                + Objects.hashCode(item.getComponent(LocusSampleComponent.class));
+    }
+
+    private static boolean legacyIsSameItem(EntityRef a, EntityRef b) {
+        BeeComponent beeA = a.getComponent(BeeComponent.class);
+        BeeComponent beeB = b.getComponent(BeeComponent.class);
+        if ((beeA == null) != (beeB == null) || beeA != null && beeA.type != beeB.type) {
+            return false;
+        }
+
+        MatedComponent matedA = a.getComponent(MatedComponent.class);
+        MatedComponent matedB = b.getComponent(MatedComponent.class);
+        if ((matedA == null) != (matedB == null) || matedA != null && !legacyEquals(matedA, matedB)) {
+            return false;
+        }
+
+        LocusSampleComponent sampleA = a.getComponent(LocusSampleComponent.class);
+        LocusSampleComponent sampleB = b.getComponent(LocusSampleComponent.class);
+        return (sampleA == null) == (sampleB == null)
+                && (sampleA == null || sampleA.locus == sampleB.locus && sampleA.genotype == sampleB.genotype);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static boolean legacyEquals(MatedComponent a, MatedComponent b) {
+        return a.ticksRemaining == b.ticksRemaining && a.lifespan == b.lifespan
+                && a.container.getComponent(GeneticsComponent.class).equals(a.container.getComponent(GeneticsComponent.class));
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int legacyHash(EntityRef item) {
+        int result = 0;
+        BeeComponent beeComponent = item.getComponent(BeeComponent.class);
+        if (beeComponent != null) {
+            result += Objects.hash(beeComponent.type);
+        }
+        MatedComponent matedComponent = item.getComponent(MatedComponent.class);
+        if (matedComponent != null) {
+            result += Objects.hash(matedComponent.ticksRemaining, matedComponent.lifespan,
+                    matedComponent.container.getComponent(GeneticsComponent.class));
+        }
+        LocusSampleComponent sampleComponent = item.getComponent(LocusSampleComponent.class);
+        if (sampleComponent != null) {
+            result += Objects.hash(sampleComponent.locus, sampleComponent.genotype);
+        }
+        return result;
+    }
+}
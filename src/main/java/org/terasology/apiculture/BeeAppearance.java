@@ -0,0 +1,42 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture;
+
+import org.terasology.engine.rendering.assets.texture.TextureRegionAsset;
+
+/**
+ * The appearance of a bee item of a given species and type: its icon, stack id, and display name.
+ *
+ * Appearances are shared between every bee of the same species and type, and are built once when species are loaded.
+ */
+public final class BeeAppearance {
+    private final TextureRegionAsset icon;
+    private final String stackId;
+    private final String displayName;
+
+    /**
+     * @param icon The item icon.
+     * @param stackId The item stack id, or null if the stack id of the item's prefab should be kept.
+     * @param displayName The item display name.
+     */
+    public BeeAppearance(TextureRegionAsset icon, String stackId, String displayName) {
+        this.icon = icon;
+        this.stackId = stackId;
+        this.displayName = displayName;
+    }
+
+    public TextureRegionAsset getIcon() {
+        return icon;
+    }
+
+    /**
+     * @return The item stack id, or null if the stack id of the item's prefab should be kept.
+     */
+    public String getStackId() {
+        return stackId;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2019 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.apiculture;
+
+import org.joml.Vector3ic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.apiculture.assets.BeeSpecies;
+import org.terasology.apiculture.assets.BeeSpeciesData;
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.components.BeeTraitsComponent;
+import org.terasology.apiculture.systems.ApiarySystem;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabManager;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.common.DisplayNameComponent;
+import org.terasology.engine.logic.inventory.ItemComponent;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.engine.rendering.assets.texture.TextureRegionAsset;
+import org.terasology.engine.world.block.BlockComponent;
+import org.terasology.engine.world.generator.WorldGenerator;
+import org.terasology.genetics.components.GeneticsComponent;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.assets.management.AssetManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Provides the traits of bee genotypes, such as lifespans, tick times, produce, and display names.
+ *
+ * The trait tables are read once from the {@link BeeTraitsComponent} of the {@link #TRAITS_PREFAB} prefab into dense
+ * arrays indexed by genotype, so lookups on the life tick path neither box nor hash. Species are read from
+ * {@link BeeSpecies} assets into a {@link BeeSpeciesTable}, which is rebuilt whenever one of them is reloaded.
+ */
+@RegisterSystem
+@Share(BeeRegistry.class)
+public class BeeRegistry extends BaseComponentSystem {
+    /** The prefab containing the trait tables. */
+    public static final String TRAITS_PREFAB = "Apiculture:bee_traits";
+
+    /** The stack id shared by all drones. */
+    public static final String DRONE_STACK_ID = "Apiculture:drone";
+
+    private static final Logger logger = LoggerFactory.getLogger(BeeRegistry.class);
+
+    /** Display names for each bee type, indexed by type ordinal. */
+    private static final String[] TYPE_NAMES = {"Drone", "Princess", "Queen"};
+
+    private static final BeeComponent.BeeType[] TYPES = BeeComponent.BeeType.values();
+
+    @In
+    private PrefabManager prefabManager;
+
+    @In
+    private AssetManager assetManager;
+
+    @In
+    private EntityManager entityManager;
+
+    @In
+    private WorldGenerator worldGenerator;
+
+    private int[] lifespans = new int[0];
+    private long[] tickTimes = new long[0];
+    private String[][] genotypeNames = new String[0][];
+
+    private volatile BeeSpeciesTable speciesTable = BeeSpeciesTable.EMPTY;
+    private final List<BeeSpecies> speciesAssets = new ArrayList<>();
+    private final Runnable speciesReloadListener = this::rebuildSpeciesTable;
+
+    private Long worldSeed;
+
+    @Override
+    public void initialise() {
+        Prefab traitsPrefab = prefabManager.getPrefab(TRAITS_PREFAB);
+        BeeTraitsComponent traits = traitsPrefab != null ? traitsPrefab.getComponent(BeeTraitsComponent.class) : null;
+        if (traits == null) {
+            logger.error("Bee traits prefab '{}' not found, bees will not function", TRAITS_PREFAB);
+        } else {
+            setTraits(traits);
+        }
+        reloadSpecies();
+    }
+
+    @Override
+    public void shutdown() {
+        unsubscribeFromSpecies();
+    }
+
+    /**
+     * Rediscovers the available species assets, picking up species added since the last discovery, and rebuilds the
+     * species table from them.
+     */
+    public void reloadSpecies() {
+        unsubscribeFromSpecies();
+        for (ResourceUrn urn : assetManager.getAvailableAssets(BeeSpecies.class)) {
+            assetManager.getAsset(urn, BeeSpecies.class).ifPresent(species -> {
+                species.addReloadListener(speciesReloadListener);
+                speciesAssets.add(species);
+            });
+        }
+        rebuildSpeciesTable();
+    }
+
+    /**
+     * @return The current species table.
+     */
+    public BeeSpeciesTable getSpeciesTable() {
+        return speciesTable;
+    }
+
+    /**
+     * Replaces the species table, until species assets are next reloaded. Intended for headless use without assets.
+     *
+     * @param speciesTable The new species table.
+     */
+    public void setSpeciesTable(BeeSpeciesTable speciesTable) {
+        this.speciesTable = speciesTable;
+    }
+
+    /**
+     * Replaces the trait tables with those of the given traits. Intended for headless use without assets.
+     *
+     * @param traits The traits to read.
+     */
+    public void setTraits(BeeTraitsComponent traits) {
+        lifespans = new int[traits.lifespans.size()];
+        for (int i = 0; i < lifespans.length; i++) {
+            lifespans[i] = traits.lifespans.get(i);
+        }
+
+        tickTimes = new long[traits.tickTimes.size()];
+        for (int i = 0; i < tickTimes.length; i++) {
+            tickTimes[i] = traits.tickTimes.get(i);
+        }
+
+        genotypeNames = new String[ApiarySystem.LOCUS_OFFSPRING_COUNT + 1][];
+        genotypeNames[ApiarySystem.LOCUS_SPEED] = toArray(traits.speedNames);
+        genotypeNames[ApiarySystem.LOCUS_LIFESPAN] = toArray(traits.lifespanNames);
+        genotypeNames[ApiarySystem.LOCUS_OFFSPRING_COUNT] = toArray(traits.offspringCountNames);
+    }
+
+    /**
+     * Updates the icon, stack id, and display name of a bee item to match its species and type.
+     *
+     * @param entity The bee item to update.
+     * @return The updated item, or null if no appearance is defined for its species and type.
+     */
+    public EntityRef modifyItemForSpeciesAndType(EntityRef entity) {
+        BeeComponent beeComponent = entity.getComponent(BeeComponent.class);
+        if (beeComponent == null) {
+            return entity;
+        }
+
+        int species = entity.getComponent(GeneticsComponent.class).activeGenes.get(ApiarySystem.LOCUS_SPECIES);
+        BeeAppearance appearance = speciesTable.getAppearance(species, beeComponent.type);
+        if (appearance == null) {
+            logger.error("No appearance defined for species {} and type '{}'", species, beeComponent.type);
+            return null;
+        }
+
+        ItemComponent itemComponent = entity.getComponent(ItemComponent.class);
+        itemComponent.icon = appearance.getIcon();
+        if (appearance.getStackId() != null) {
+            itemComponent.stackId = appearance.getStackId();
+        }
+        entity.saveComponent(itemComponent);
+
+        DisplayNameComponent displayNameComponent = entity.getComponent(DisplayNameComponent.class);
+        if (displayNameComponent == null) {
+            displayNameComponent = new DisplayNameComponent();
+            displayNameComponent.name = appearance.getDisplayName();
+            entity.addComponent(displayNameComponent);
+        } else {
+            displayNameComponent.name = appearance.getDisplayName();
+            entity.saveComponent(displayNameComponent);
+        }
+
+        return entity;
+    }
+
+    public int getLifespanFromGenome(int genome) {
+        return lifespans[genome];
+    }
+
+    public long getTickTimeFromGenome(int genome) {
+        return tickTimes[genome];
+    }
+
+    /**
+     * @param species The species genotype of a bee.
+     * @return The prefab of the species' produce, or null if it is undefined.
+     */
+    public Prefab getProducePrefab(int species) {
+        BeeSpeciesTable table = speciesTable;
+        return table.contains(species) ? table.getProducePrefab(species) : null;
+    }
+
+    /**
+     * Rolls how much produce a bee of the given species yields over a number of life ticks, as a single binomial draw
+     * rather than one roll per tick. Safe to call from any thread.
+     *
+     * @param species The species genotype of the bee.
+     * @param ticks The number of life ticks.
+     * @param random The random stream of the ticks.
+     * @return The amount of produce yielded, of the species' produce prefab.
+     */
+    public int getProduceCountWithChance(int species, int ticks, SplittableRandom random) {
+        BeeSpeciesTable table = speciesTable;
+        if (!table.contains(species) || ticks <= 0) {
+            return 0;
+        }
+
+        double chance = table.getProduceChance(species);
+        if (chance <= 0) {
+            return 0;
+        } else if (chance >= 1) {
+            return ticks;
+        }
+
+        // Inversion over the binomial distribution, walking up from P(X = 0)
+        double odds = chance / (1 - chance);
+        double probability = Math.pow(1 - chance, ticks);
+        double cumulative = probability;
+        double roll = random.nextDouble();
+        int count = 0;
+        while (roll > cumulative && count < ticks) {
+            probability *= odds * (ticks - count) / (count + 1);
+            count++;
+            cumulative += probability;
+        }
+        return count;
+    }
+
+    /**
+     * Creates the random stream for a single tick of a machine, derived from the world seed, the position of the machine
+     * and the tick number. See {@link MachineRandom}.
+     *
+     * @param machine The machine, usually a block entity.
+     * @param tick The number of the tick, such as the game time it is due at.
+     * @return A fresh random stream.
+     */
+    public SplittableRandom getRandom(EntityRef machine, long tick) {
+        return MachineRandom.forTick(getMachineSeed(machine), tick);
+    }
+
+    /**
+     * @param machine The machine, usually a block entity.
+     * @return The seed of the machine, derived from the world seed and the position of its block.
+     */
+    public long getMachineSeed(EntityRef machine) {
+        BlockComponent blockComponent = machine.getComponent(BlockComponent.class);
+        if (blockComponent == null) {
+            return MachineRandom.machineSeed(getWorldSeed(), machine.getId());
+        }
+        Vector3ic position = blockComponent.getPosition();
+        return MachineRandom.machineSeed(getWorldSeed(), position.x(), position.y(), position.z());
+    }
+
+    private long getWorldSeed() {
+        if (worldSeed == null) {
+            if (worldGenerator == null) {
+                logger.error("No WorldGenerator available, machine random streams will not depend on the world");
+                worldSeed = 0L;
+            } else {
+                worldSeed = MachineRandom.worldSeed(worldGenerator.getWorldSeed());
+            }
+        }
+        return worldSeed;
+    }
+
+    /**
+     * @param locus The locus of the gene.
+     * @param genotype The genotype at the locus.
+     * @return The display name of the genotype, or a name with the bare genotype if it has none, as packed genomes can
+     *         hold genotypes that no species or trait defines.
+     */
+    public String getDisplayNameComponentForLocusAndGenotype(int locus, int genotype) {
+        String name = null;
+        if (locus == ApiarySystem.LOCUS_SPECIES) {
+            if (speciesTable.contains(genotype)) {
+                name = speciesTable.getSpeciesName(genotype);
+            }
+        } else if (locus >= 0 && locus < genotypeNames.length && genotypeNames[locus] != null
+                && genotype >= 0 && genotype < genotypeNames[locus].length) {
+            name = genotypeNames[locus][genotype];
+        }
+        return name != null ? name : "Unknown (" + genotype + ")";
+    }
+
+    private void unsubscribeFromSpecies() {
+        for (BeeSpecies species : speciesAssets) {
+            species.removeReloadListener(speciesReloadListener);
+        }
+        speciesAssets.clear();
+    }
+
+    private void rebuildSpeciesTable() {
+        int size = 0;
+        for (BeeSpecies species : speciesAssets) {
+            if (!species.isDisposed()) {
+                size = Math.max(size, species.getData().genotype + 1);
+            }
+        }
+
+        boolean[] defined = new boolean[size];
+        String[] speciesNames = new String[size];
+        float[] produceChances = new float[size];
+        Prefab[] producePrefabs = new Prefab[size];
+        BeeAppearance[] appearances = new BeeAppearance[BeeSpeciesTable.appearanceCount(size)];
+
+        for (BeeSpecies species : speciesAssets) {
+            if (species.isDisposed()) {
+                continue;
+            }
+            BeeSpeciesData data = species.getData();
+            int genotype = data.genotype;
+            if (genotype < 0 || defined[genotype]) {
+                logger.error("Species genotype {} of '{}' is invalid or already defined", genotype, species.getUrn());
+                continue;
+            }
+
+            defined[genotype] = true;
+            speciesNames[genotype] = data.displayName;
+            produceChances[genotype] = data.produceChance;
+            producePrefabs[genotype] = prefabManager.getPrefab(data.produce);
+            if (producePrefabs[genotype] == null) {
+                logger.error("Produce prefab '{}' not found for species '{}'", data.produce, species.getUrn());
+            }
+
+            String[] iconUrns = new String[TYPES.length];
+            iconUrns[BeeComponent.BeeType.DRONE.ordinal()] = data.icons.drone;
+            iconUrns[BeeComponent.BeeType.PRINCESS.ordinal()] = data.icons.princess;
+            iconUrns[BeeComponent.BeeType.QUEEN.ordinal()] = data.icons.queen;
+
+            for (BeeComponent.BeeType type : TYPES) {
+                String iconUrn = iconUrns[type.ordinal()];
+                TextureRegionAsset icon = iconUrn == null ? null : assetManager.getAsset(iconUrn, TextureRegionAsset.class).orElse(null);
+                if (icon == null) {
+                    logger.error("Texture '{}' not found for species '{}'", iconUrn, species.getUrn());
+                    continue;
+                }
+                appearances[BeeSpeciesTable.appearanceIndex(genotype, type)] = new BeeAppearance(icon,
+                        type == BeeComponent.BeeType.DRONE ? DRONE_STACK_ID : null, data.name + " " + TYPE_NAMES[type.ordinal()]);
+            }
+        }
+
+        speciesTable = new BeeSpeciesTable(defined, speciesNames, produceChances, producePrefabs, appearances);
+    }
+
+    private static String[] toArray(List<String> names) {
+        return names.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,100 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture;
+
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+
+/**
+ * An immutable table of bee species, indexed by species genotype, with every asset the species refer to already resolved.
+ *
+ * Tables are built by the {@link BeeRegistry} from the loaded {@link org.terasology.apiculture.assets.BeeSpecies} assets,
+ * and replaced as a whole whenever those are reloaded.
+ */
+public final class BeeSpeciesTable {
+    private static final int TYPE_COUNT = BeeComponent.BeeType.values().length;
+
+    /** A table without any species. */
+    public static final BeeSpeciesTable EMPTY = new BeeSpeciesTable(new boolean[0], new String[0], new float[0], new Prefab[0],
+            new BeeAppearance[0]);
+
+    private final boolean[] defined;
+    private final String[] speciesNames;
+    private final float[] produceChances;
+    private final Prefab[] producePrefabs;
+    private final BeeAppearance[] appearances;
+
+    /**
+     * Creates a table from arrays indexed by species genotype. The arrays are not copied.
+     *
+     * @param defined Whether each genotype has a species defined.
+     * @param speciesNames The display name of each species genotype.
+     * @param produceChances The chance of each species to generate produce on a life tick.
+     * @param producePrefabs The produce of each species.
+     * @param appearances The appearance of each species and bee type, at {@link #appearanceIndex(int, BeeComponent.BeeType)}.
+     */
+    public BeeSpeciesTable(boolean[] defined, String[] speciesNames, float[] produceChances, Prefab[] producePrefabs,
+                           BeeAppearance[] appearances) {
+        this.defined = defined;
+        this.speciesNames = speciesNames;
+        this.produceChances = produceChances;
+        this.producePrefabs = producePrefabs;
+        this.appearances = appearances;
+    }
+
+    /**
+     * @param species The species genotype.
+     * @param type The bee type.
+     * @return The index of the appearance of the species and bee type in a flat appearance array.
+     */
+    public static int appearanceIndex(int species, BeeComponent.BeeType type) {
+        return species * TYPE_COUNT + type.ordinal();
+    }
+
+    /**
+     * @param speciesCount One more than the highest species genotype.
+     * @return The length of a flat appearance array holding every species and bee type.
+     */
+    public static int appearanceCount(int speciesCount) {
+        return speciesCount * TYPE_COUNT;
+    }
+
+    /**
+     * @param species The species genotype.
+     * @return Whether a species is defined for the genotype.
+     */
+    public boolean contains(int species) {
+        return species >= 0 && species < defined.length && defined[species];
+    }
+
+    /**
+     * @return One more than the highest species genotype in this table.
+     */
+    public int size() {
+        return defined.length;
+    }
+
+    public String getSpeciesName(int species) {
+        return speciesNames[species];
+    }
+
+    public float getProduceChance(int species) {
+        return produceChances[species];
+    }
+
+    public Prefab getProducePrefab(int species) {
+        return producePrefabs[species];
+    }
+
+    /**
+     * @param species The species genotype.
+     * @param type The bee type.
+     * @return The appearance of bees of the species and type, or null if the species is undefined or incomplete.
+     */
+    public BeeAppearance getAppearance(int species, BeeComponent.BeeType type) {
+        if (!contains(species)) {
+            return null;
+        }
+        return appearances[appearanceIndex(species, type)];
+    }
+}
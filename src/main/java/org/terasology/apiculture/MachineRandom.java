@@ -0,0 +1,63 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture;
+
+import java.util.SplittableRandom;
+
+/**
+ * Derives the random streams used by bee machines.
+ *
+ * Every stream is seeded from the world seed, the machine it belongs to, and the number of the tick it is drawn for. The
+ * outcome of a tick is therefore reproducible, and does not depend on which other machines ran before it or on which
+ * thread it is computed.
+ */
+public final class MachineRandom {
+    private MachineRandom() {
+    }
+
+    /**
+     * @param worldSeed The seed of the world, as given by its world generator.
+     * @return The numeric seed of the world.
+     */
+    public static long worldSeed(String worldSeed) {
+        return mix(worldSeed.hashCode());
+    }
+
+    /**
+     * @param worldSeed The numeric seed of the world.
+     * @param x The x position of the machine's block.
+     * @param y The y position of the machine's block.
+     * @param z The z position of the machine's block.
+     * @return The seed of a machine placed as a block.
+     */
+    public static long machineSeed(long worldSeed, int x, int y, int z) {
+        return mix(mix(mix(worldSeed ^ x) ^ y) ^ z);
+    }
+
+    /**
+     * @param worldSeed The numeric seed of the world.
+     * @param entityId The id of the machine's entity.
+     * @return The seed of a machine that is not placed as a block.
+     */
+    public static long machineSeed(long worldSeed, long entityId) {
+        return mix(~worldSeed ^ mix(entityId));
+    }
+
+    /**
+     * @param machineSeed The seed of the machine.
+     * @param tick The number of the tick.
+     * @return A fresh random stream for a single tick of a machine.
+     */
+    public static SplittableRandom forTick(long machineSeed, long tick) {
+        return new SplittableRandom(mix(machineSeed ^ mix(tick)));
+    }
+
+    /**
+     * The finalizer of SplitMix64, spreading every input bit over the whole result.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,59 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.assets;
+
+import org.terasology.gestalt.assets.Asset;
+import org.terasology.gestalt.assets.AssetType;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.assets.module.annotations.RegisterAssetType;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A bee species definition, loaded from a {@code .bee} file in a module's {@code bees} asset folder.
+ *
+ * Listeners may be registered to be notified when the definition is hot-reloaded.
+ */
+@RegisterAssetType(folderName = "bees", factoryClass = BeeSpeciesFactory.class)
+public class BeeSpecies extends Asset<BeeSpeciesData> {
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+
+    private BeeSpeciesData data;
+
+    public BeeSpecies(ResourceUrn urn, AssetType<?, BeeSpeciesData> assetType, BeeSpeciesData data) {
+        super(urn, assetType);
+        reload(data);
+    }
+
+    /**
+     * @return The current contents of this species definition.
+     */
+    public BeeSpeciesData getData() {
+        return data;
+    }
+
+    /**
+     * Registers a listener to be run whenever this species definition is reloaded.
+     *
+     * @param listener The listener to register.
+     */
+    public void addReloadListener(Runnable listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * @param listener The listener to unregister.
+     */
+    public void removeReloadListener(Runnable listener) {
+        reloadListeners.remove(listener);
+    }
+
+    @Override
+    protected void doReload(BeeSpeciesData speciesData) {
+        this.data = speciesData;
+        for (Runnable listener : reloadListeners) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.assets;
+
+import org.terasology.gestalt.assets.AssetData;
+
+/**
+ * The contents of a {@code .bee} species definition file.
+ */
+public class BeeSpeciesData implements AssetData {
+    /**
+     * The species genotype this definition describes.
+     */
+    public int genotype;
+
+    /**
+     * The short name of the species, used to prefix bee display names.
+     */
+    public String name;
+
+    /**
+     * The display name of the species genotype, as shown on genetic samples.
+     */
+    public String displayName;
+
+    /**
+     * The prefab of the produce queens of this species generate.
+     */
+    public String produce;
+
+    /**
+     * The chance a queen of this species generates produce on a life tick.
+     */
+    public float produceChance;
+
+    /**
+     * The icons of this species for each bee type.
+     */
+    public Icons icons = new Icons();
+
+    /**
+     * The texture urns of a species' icons for each bee type.
+     */
+    public static class Icons {
+        public String drone;
+        public String princess;
+        public String queen;
+    }
+}
@@ -0,0 +1,14 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.assets;
+
+import org.terasology.gestalt.assets.AssetFactory;
+import org.terasology.gestalt.assets.AssetType;
+import org.terasology.gestalt.assets.ResourceUrn;
+
+public class BeeSpeciesFactory implements AssetFactory<BeeSpecies, BeeSpeciesData> {
+    @Override
+    public BeeSpecies build(ResourceUrn urn, AssetType<BeeSpecies, BeeSpeciesData> type, BeeSpeciesData data) {
+        return new BeeSpecies(urn, type, data);
+    }
+}
@@ -0,0 +1,41 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.assets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.assets.format.AbstractAssetFileFormat;
+import org.terasology.gestalt.assets.format.AssetDataFile;
+import org.terasology.gestalt.assets.module.annotations.RegisterAssetFileFormat;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Loads bee species definitions from JSON {@code .bee} files.
+ */
+@RegisterAssetFileFormat
+public class BeeSpeciesFormat extends AbstractAssetFileFormat<BeeSpeciesData> {
+    private final Gson gson = new Gson();
+
+    public BeeSpeciesFormat() {
+        super("bee");
+    }
+
+    @Override
+    public BeeSpeciesData load(ResourceUrn urn, List<AssetDataFile> inputs) throws IOException {
+        try (Reader reader = new InputStreamReader(inputs.get(0).openStream(), StandardCharsets.UTF_8)) {
+            BeeSpeciesData data = gson.fromJson(reader, BeeSpeciesData.class);
+            if (data == null || data.name == null || data.icons == null) {
+                throw new IOException("Incomplete bee species definition: " + urn);
+            }
+            return data;
+        } catch (JsonParseException e) {
+            throw new IOException("Failed to parse bee species definition: " + urn, e);
+        }
+    }
+}
@@ -15,25 +15,111 @@
  */
 package org.terasology.apiculture.commands;
 
+import org.joml.Vector3ic;
+import org.terasology.apiculture.BeeRegistry;
+import org.terasology.apiculture.components.ApiaryComponent;
 import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.components.ExtractorComponent;
+import org.terasology.apiculture.components.InjectorComponent;
 import org.terasology.apiculture.components.MatedComponent;
+import org.terasology.apiculture.components.ProcessingComponent;
+import org.terasology.apiculture.genetics.PackedGenome;
+import org.terasology.apiculture.metrics.ApiaryMetrics;
+import org.terasology.apiculture.metrics.LoggingMetricsSink;
+import org.terasology.apiculture.metrics.MachineProfile;
+import org.terasology.apiculture.pedigree.PedigreeLog;
+import org.terasology.apiculture.pedigree.PedigreeReader;
+import org.terasology.apiculture.pedigree.PedigreeRecord;
+import org.terasology.apiculture.pedigree.PedigreeSegments;
+import org.terasology.apiculture.systems.ApiaryStateStore;
+import org.terasology.apiculture.systems.ApiarySystem;
+import org.terasology.apiculture.systems.ApiaryTickScheduler;
+import org.terasology.apiculture.systems.ExtractorSystem;
+import org.terasology.apiculture.systems.GenotypeIndex;
+import org.terasology.apiculture.systems.GenotypeQuery;
+import org.terasology.apiculture.systems.InjectorSystem;
+import org.terasology.engine.core.GameThread;
+import org.terasology.engine.core.Time;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
 import org.terasology.engine.logic.characters.CharacterHeldItemComponent;
+import org.terasology.engine.logic.console.ConsoleMessageEvent;
 import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.console.commandSystem.annotations.CommandParam;
 import org.terasology.engine.logic.console.commandSystem.annotations.Sender;
+import org.terasology.engine.logic.delay.DelayManager;
 import org.terasology.engine.logic.permission.PermissionManager;
 import org.terasology.engine.network.ClientComponent;
 import org.terasology.engine.registry.In;
+import org.terasology.engine.world.block.BlockComponent;
 import org.terasology.genetics.components.GeneticsComponent;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @RegisterSystem
 public class BeeCommands extends BaseComponentSystem {
+    /** The maximum number of births listed by beePedigreeLookup. */
+    private static final int PEDIGREE_LOOKUP_LIMIT = 10;
+
+    /** The maximum number of pedigree log segments, newest first, searched by beePedigreeLookup. */
+    private static final int PEDIGREE_LOOKUP_SEGMENTS = 4;
+
     @In
     private EntityManager entityManager;
 
+    @In
+    private ApiaryTickScheduler tickScheduler;
+
+    @In
+    private BeeRegistry beeRegistry;
+
+    @In
+    private ApiaryStateStore stateStore;
+
+    @In
+    private ApiaryMetrics metrics;
+
+    @In
+    private DelayManager delayManager;
+
+    @In
+    private PedigreeLog pedigreeLog;
+
+    @In
+    private GenotypeIndex genotypeIndex;
+
+    @In
+    private Time time;
+
+    private final LoggingMetricsSink loggingSink = new LoggingMetricsSink();
+
+    /** Runs pedigree lookups, which read up to {@link #PEDIGREE_LOOKUP_SEGMENTS} whole segments, off the game thread. */
+    private ExecutorService pedigreeLookups;
+
+    @Override
+    public void initialise() {
+        pedigreeLookups = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Apiculture pedigree lookup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        pedigreeLookups.shutdownNow();
+    }
+
     @Command(value = "beeDumpGenes",
             shortDescription = "Shows the genes of a held bee",
             helpText = "Displays the raw genetic data from a bee currently being held",
@@ -63,7 +149,7 @@ public class BeeCommands extends BaseComponentSystem {
         }
         if (item.hasComponent(MatedComponent.class)) {
             sb.append("\n\nMate:\nActive: ");
-            genetics = item.getComponent(MatedComponent.class).container.getComponent(GeneticsComponent.class);
+            genetics = PackedGenome.inflate(item.getComponent(MatedComponent.class).mateGenome, ApiarySystem.GENOME_SIZE);
             for (int i = 0; i < genetics.activeGenes.size(); i++) {
                 sb.append(genetics.activeGenes.get(i));
                 if (i != genetics.activeGenes.size() - 1) {
@@ -80,4 +166,288 @@ public class BeeCommands extends BaseComponentSystem {
         }
         return sb.toString();
     }
+
+    @Command(value = "beeTickBudget",
+            shortDescription = "Sets the apiary life tick budget",
+            helpText = "Sets the maximum number of apiary life ticks processed per game update",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String setTickBudget(@CommandParam("budget") int budget) {
+        tickScheduler.setBudget(budget);
+        return "Apiary life tick budget set to " + tickScheduler.getBudget()
+                + " (" + tickScheduler.getScheduledCount() + " apiaries scheduled)";
+    }
+
+    @Command(value = "beeReloadSpecies",
+            shortDescription = "Reloads bee species definitions",
+            helpText = "Rebuilds the bee species table, picking up species definitions added since the game started",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String reloadSpecies() {
+        beeRegistry.reloadSpecies();
+        return "Loaded " + beeRegistry.getSpeciesTable().size() + " bee species";
+    }
+
+    @Command(value = "beeStateStore",
+            shortDescription = "Toggles the apiary state store",
+            helpText = "Enables or disables mirroring apiaries into flat arrays for the life tick loop",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String setStateStoreEnabled(@CommandParam("enabled") boolean enabled) {
+        stateStore.setEnabled(enabled);
+        if (!stateStore.isEnabled()) {
+            return "Apiary state store disabled (" + tickScheduler.getScheduledCount() + " apiaries scheduled)";
+        }
+        return "Apiary state store enabled (" + stateStore.size() + " apiaries, " + stateStore.getQueenCount() + " with queens)";
+    }
+
+    @Command(value = "beeMetrics",
+            shortDescription = "Shows apiculture metrics",
+            helpText = "Displays the work done by apiaries, extractors and injectors since the metrics were last reset, "
+                    + "with the latency of their handlers and the lag of their scheduled actions",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String showMetrics() {
+        return metrics.getTotals().format();
+    }
+
+    @Command(value = "beeMetricsReset",
+            shortDescription = "Resets apiculture metrics",
+            helpText = "Discards the apiculture metrics recorded so far",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String resetMetrics() {
+        metrics.reset();
+        return "Apiculture metrics reset";
+    }
+
+    @Command(value = "beeMetricsLog",
+            shortDescription = "Toggles logging apiculture metrics",
+            helpText = "Enables or disables writing the apiculture metrics to the log at the end of every reporting interval",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String setMetricsLogged(@CommandParam("enabled") boolean enabled) {
+        if (enabled && !metrics.hasSink(loggingSink)) {
+            metrics.addSink(loggingSink);
+        } else if (!enabled) {
+            metrics.removeSink(loggingSink);
+        }
+        return "Apiculture metrics logging " + (enabled ? "enabled, every " + ApiaryMetrics.REPORT_INTERVAL / 1000 + "s" : "disabled");
+    }
+
+    @Command(value = "beeProfile",
+            shortDescription = "Profiles apiculture machines for a while",
+            helpText = "Samples the handler timings of apiaries, extractors and injectors, and counts the events of each "
+                    + "machine, for the given number of seconds",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String startProfile(@CommandParam("seconds") int seconds) {
+        MachineProfile profile = metrics.startProfile(Math.max(seconds, 1) * 1000L);
+        return "Profiling apiculture machines for " + profile.getDuration() / 1000
+                + "s, see beeProfileResult and beeTopMachines";
+    }
+
+    @Command(value = "beeProfileResult",
+            shortDescription = "Shows apiculture handler timings",
+            helpText = "Displays the handler timings sampled by the current or last beeProfile session",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String showProfile() {
+        MachineProfile profile = metrics.getProfile();
+        if (profile == null) {
+            return "No profile has been taken, start one with beeProfile.";
+        }
+        return profile.formatTimings();
+    }
+
+    @Command(value = "beeTopMachines",
+            shortDescription = "Lists the busiest apiculture machines",
+            helpText = "Lists the apiaries, extractors and injectors with the highest event rate during the current or "
+                    + "last beeProfile session",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String showTopMachines(@CommandParam("count") int count) {
+        MachineProfile profile = metrics.getProfile();
+        if (profile == null) {
+            return "No profile has been taken, start one with beeProfile.";
+        }
+        double seconds = Math.max(profile.getElapsed(), 1L) / 1000.0;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%d machines active over %.1fs:", profile.getMachineCount(), seconds));
+        for (Map.Entry<EntityRef, Long> entry : profile.getBusiestMachines(Math.max(count, 1))) {
+            sb.append(String.format(Locale.ROOT, "\n  %s %s: %d events (%.2f/s)", getMachineType(entry.getKey()),
+                    getMachineLocation(entry.getKey()), entry.getValue(), entry.getValue() / seconds));
+        }
+        return sb.toString();
+    }
+
+    @Command(value = "beeQueueDepth",
+            shortDescription = "Shows the scheduled apiculture actions",
+            helpText = "Displays the number of machines scheduled per action, how many of them are overdue, and how many "
+                    + "finished processing but are waiting for room in their output",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String showQueueDepth() {
+        long now = time.getGameTimeInMs();
+        StringBuilder sb = new StringBuilder();
+        if (stateStore.isEnabled()) {
+            sb.append(String.format(Locale.ROOT, "%s: %d scheduled, %d overdue (state store)", ApiarySystem.LIFE_TICK_EVENT,
+                    stateStore.getQueenCount(), stateStore.getOverdueCount(now)));
+        } else {
+            sb.append(String.format(Locale.ROOT, "%s: %d scheduled, %d overdue", ApiarySystem.LIFE_TICK_EVENT,
+                    tickScheduler.getScheduledCount(), tickScheduler.getOverdueCount(now)));
+        }
+        appendQueueDepth(sb, ApiarySystem.MATING_EVENT, ApiaryComponent.class, now);
+        appendQueueDepth(sb, ExtractorSystem.EXTRACT_EVENT, ExtractorComponent.class, now);
+        appendQueueDepth(sb, InjectorSystem.INJECT_EVENT, InjectorComponent.class, now);
+        return sb.toString();
+    }
+
+    @Command(value = "beePedigreeLog",
+            shortDescription = "Toggles the pedigree log",
+            helpText = "Enables or disables recording the parents and offspring of every birth in an apiary to disk",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String setPedigreeLogEnabled(@CommandParam("enabled") boolean enabled) {
+        long recorded = pedigreeLog.getRecordedCount();
+        long dropped = pedigreeLog.getDroppedCount();
+        if (!pedigreeLog.setEnabled(enabled)) {
+            return "Failed to open the pedigree log in " + pedigreeLog.getDirectory() + ", see the log for details.";
+        }
+        if (enabled) {
+            return "Pedigree log enabled, writing to " + pedigreeLog.getDirectory();
+        }
+        return "Pedigree log disabled after " + recorded + " births (" + dropped + " dropped)";
+    }
+
+    @Command(value = "beePedigreeLookup",
+            shortDescription = "Shows the parents of a held bee",
+            helpText = "Searches the newest segments of the pedigree log for the most recent births of bees with the genome "
+                    + "of the held bee",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String lookupPedigree(@Sender EntityRef client) {
+        EntityRef item = client.getComponent(ClientComponent.class).character.getComponent(CharacterHeldItemComponent.class).selectedItem;
+        if (!item.hasComponent(BeeComponent.class)) {
+            return "Held item is not a bee.";
+        }
+        long genome = PackedGenome.pack(item.getComponent(GeneticsComponent.class));
+
+        // The search reads whole segments, so it runs in the background and its result is sent to the console later
+        Path directory = pedigreeLog.getDirectory();
+        pedigreeLookups.execute(() -> {
+            String result = searchPedigree(directory, genome);
+            GameThread.asynch(() -> {
+                if (client.exists()) {
+                    client.send(new ConsoleMessageEvent(result));
+                }
+            });
+        });
+        return String.format(Locale.ROOT, "Searching the pedigree log for births of genome %016x...", genome);
+    }
+
+    /**
+     * Searches the newest segments of a pedigree log for the most recent births of a genome. Runs off the game thread.
+     *
+     * @param directory The directory of the log.
+     * @param genome The packed genome of the offspring to search for.
+     * @return The births found, newest first, for the console.
+     */
+    private static String searchPedigree(Path directory, long genome) {
+        // Search the newest segments first, and stop as soon as enough births are found. Within a segment, only the
+        // last matches are kept, in a ring of records with one spare to read into.
+        List<String> births = new ArrayList<>();
+        PedigreeRecord[] matches = new PedigreeRecord[PEDIGREE_LOOKUP_LIMIT + 1];
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] = new PedigreeRecord();
+        }
+        int searched = 0;
+        List<Path> segments;
+        try {
+            segments = PedigreeSegments.list(directory);
+            for (int i = segments.size() - 1; i >= 0 && searched < PEDIGREE_LOOKUP_SEGMENTS
+                    && births.size() < PEDIGREE_LOOKUP_LIMIT; i--) {
+                int remaining = PEDIGREE_LOOKUP_LIMIT - births.size();
+                int ringSize = remaining + 1;
+                int matchCount = 0;
+                try (PedigreeReader reader = new PedigreeReader(segments.get(i))) {
+                    while (reader.next(matches[matchCount % ringSize])) {
+                        if (matches[matchCount % ringSize].hasOffspring(genome)) {
+                            matchCount++;
+                        }
+                    }
+                }
+                for (int match = matchCount - 1; match >= Math.max(0, matchCount - remaining); match--) {
+                    PedigreeRecord record = matches[match % ringSize];
+                    births.add(String.format(Locale.ROOT, "\n  at %d in apiary #%d: queen %016x, drone %016x",
+                            record.gameTime, record.apiary, record.queenGenome, record.droneGenome));
+                }
+                searched++;
+            }
+        } catch (IOException e) {
+            return "Failed to read the pedigree log: " + e.getMessage();
+        }
+        String truncated = births.size() < PEDIGREE_LOOKUP_LIMIT && searched < segments.size()
+                ? String.format(Locale.ROOT, "\nSearched the newest %d of %d log segments.", searched, segments.size())
+                : "";
+        if (births.isEmpty()) {
+            return String.format(Locale.ROOT, "No births of genome %016x logged.", genome) + truncated;
+        }
+        return String.format(Locale.ROOT, "Most recent births of genome %016x, newest first:", genome)
+                + String.join("", births) + truncated;
+    }
+
+    @Command(value = "beeCountGenotype",
+            shortDescription = "Counts bees with a genotype",
+            helpText = "Counts the loaded bee items, in any inventory, with the given genotype active at the given locus",
+            runOnServer = true,
+            requiredPermission = PermissionManager.CHEAT_PERMISSION)
+    public String countGenotype(@CommandParam("locus") int locus, @CommandParam("genotype") int genotype) {
+        try {
+            int count = genotypeIndex.count(new GenotypeQuery().with(locus, genotype));
+            return count + " of " + genotypeIndex.size() + " loaded bees have genotype " + genotype + " at locus " + locus;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Appends the depth of the delayed action queue of a type of machine, counting the machines that are processing.
+     */
+    private void appendQueueDepth(StringBuilder sb, String actionId, Class<? extends Component> machineType, long now) {
+        int scheduled = 0;
+        int overdue = 0;
+        int waiting = 0;
+        for (EntityRef machine : entityManager.getEntitiesWith(machineType, ProcessingComponent.class)) {
+            if (!delayManager.hasDelayedAction(machine, actionId)) {
+                waiting++;
+            } else {
+                scheduled++;
+                if (machine.getComponent(ProcessingComponent.class).finishTime <= now) {
+                    overdue++;
+                }
+            }
+        }
+        sb.append(String.format(Locale.ROOT, "\n%s: %d scheduled, %d overdue, %d waiting", actionId, scheduled, overdue, waiting));
+    }
+
+    private static String getMachineType(EntityRef machine) {
+        if (machine.hasComponent(ApiaryComponent.class)) {
+            return "Apiary";
+        } else if (machine.hasComponent(ExtractorComponent.class)) {
+            return "Extractor";
+        } else if (machine.hasComponent(InjectorComponent.class)) {
+            return "Injector";
+        }
+        return "Machine";
+    }
+
+    private static String getMachineLocation(EntityRef machine) {
+        BlockComponent blockComponent = machine.getComponent(BlockComponent.class);
+        if (blockComponent == null) {
+            return "#" + machine.getId();
+        }
+        Vector3ic position = blockComponent.getPosition();
+        return "at (" + position.x() + ", " + position.y() + ", " + position.z() + ")";
+    }
 }
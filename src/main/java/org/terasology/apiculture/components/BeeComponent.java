@@ -5,8 +5,6 @@ package org.terasology.apiculture.components;
 import org.terasology.gestalt.entitysystem.component.Component;
 import org.terasology.module.inventory.components.ItemDifferentiating;
 
-import java.util.Objects;
-
 /**
  * Indicates that an item is a bee.
  */
@@ -27,14 +25,19 @@ public final class BeeComponent implements Component<BeeComponent>, ItemDifferen
         QUEEN
     }
 
+    @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (!(o instanceof BeeComponent)) {
             return false;
         }
         return ((BeeComponent) o).type == type;
     }
 
+    @Override
     public int hashCode() {
-        return Objects.hash(type);
+        return type == null ? 0 : type.ordinal() + 1;
     }
 }
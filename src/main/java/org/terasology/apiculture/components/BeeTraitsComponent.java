@@ -0,0 +1,51 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.components;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the trait tables read by the bee registry. Each list is indexed by the genotype of the locus it describes.
+ *
+ * Species traits are defined separately, by {@link org.terasology.apiculture.assets.BeeSpecies} assets.
+ *
+ * Only a single prefab carrying this component is expected, and it is never instantiated into an entity.
+ */
+public final class BeeTraitsComponent implements Component<BeeTraitsComponent> {
+    /**
+     * The number of life ticks in a queen's lifespan, for each lifespan genotype.
+     */
+    public List<Integer> lifespans = new ArrayList<>();
+
+    /**
+     * The time, in milliseconds, between life ticks, for each speed genotype.
+     */
+    public List<Long> tickTimes = new ArrayList<>();
+
+    /**
+     * Display names for each speed genotype.
+     */
+    public List<String> speedNames = new ArrayList<>();
+
+    /**
+     * Display names for each lifespan genotype.
+     */
+    public List<String> lifespanNames = new ArrayList<>();
+
+    /**
+     * Display names for each offspring count genotype. Unused genotypes have an empty name.
+     */
+    public List<String> offspringCountNames = new ArrayList<>();
+
+    @Override
+    public void copyFrom(BeeTraitsComponent other) {
+        this.lifespans = new ArrayList<>(other.lifespans);
+        this.tickTimes = new ArrayList<>(other.tickTimes);
+        this.speedNames = new ArrayList<>(other.speedNames);
+        this.lifespanNames = new ArrayList<>(other.lifespanNames);
+        this.offspringCountNames = new ArrayList<>(other.offspringCountNames);
+    }
+}
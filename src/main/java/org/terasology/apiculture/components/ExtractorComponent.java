@@ -2,10 +2,30 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.apiculture.components;
 
-import org.terasology.gestalt.entitysystem.component.EmptyComponent;
+import org.terasology.gestalt.entitysystem.component.Component;
 
 /**
  * Indicates that a block entity is an extractor.
  */
-public class ExtractorComponent extends EmptyComponent<ExtractorComponent> {
+public class ExtractorComponent implements Component<ExtractorComponent> {
+    /** The highest upgrade tier an extractor can have. */
+    public static final int MAX_TIER = 4;
+
+    /**
+     * The upgrade tier of the extractor. Each tier doubles the number of bees extracted per cycle, starting from one
+     * bee at tier 0. Raised by using an item with an {@link ExtractorUpgradeComponent} on the extractor.
+     */
+    public int tier;
+
+    /**
+     * @return The number of bees the extractor processes per cycle.
+     */
+    public int getBatchSize() {
+        return 1 << Math.max(0, Math.min(tier, MAX_TIER));
+    }
+
+    @Override
+    public void copyFrom(ExtractorComponent other) {
+        this.tier = other.tier;
+    }
 }
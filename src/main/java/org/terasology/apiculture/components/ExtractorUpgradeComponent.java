@@ -0,0 +1,11 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.components;
+
+import org.terasology.gestalt.entitysystem.component.EmptyComponent;
+
+/**
+ * Indicates that an item upgrades the extractor it is used on by one tier, and is consumed in doing so.
+ */
+public class ExtractorUpgradeComponent extends EmptyComponent<ExtractorUpgradeComponent> {
+}
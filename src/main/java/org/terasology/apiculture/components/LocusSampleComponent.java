@@ -5,8 +5,6 @@ package org.terasology.apiculture.components;
 import org.terasology.gestalt.entitysystem.component.Component;
 import org.terasology.module.inventory.components.ItemDifferentiating;
 
-import java.util.Objects;
-
 /**
  * Indicates an item is a genetic sample, and stores the locus and genotype of the gene it is a sample of.
  */
@@ -28,7 +26,11 @@ public class LocusSampleComponent implements Component<LocusSampleComponent>, It
         this.genotype = genotype;
     }
 
+    @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (!(o instanceof LocusSampleComponent)) {
             return false;
         }
@@ -37,8 +39,9 @@ public class LocusSampleComponent implements Component<LocusSampleComponent>, It
         return locus == sampleComponent.locus && genotype == sampleComponent.genotype;
     }
 
+    @Override
     public int hashCode() {
-        return Objects.hash(locus, genotype);
+        return 31 * locus + genotype;
     }
 
     @Override
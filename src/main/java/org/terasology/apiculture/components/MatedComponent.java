@@ -2,58 +2,191 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.apiculture.components;
 
-import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.apiculture.genetics.PackedGenome;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.network.Replicate;
 import org.terasology.genetics.components.GeneticsComponent;
 import org.terasology.gestalt.entitysystem.component.Component;
 import org.terasology.module.inventory.components.ItemDifferentiating;
 
-import java.util.Objects;
-
 /**
  * Stores the genetic and lifespan information for a queen bee.
+ *
+ * The queen's life is expressed as a start time and a tick interval: her n-th life tick falls at
+ * {@code startTime + n * tickTime}, and her remaining lifespan is derived from them on demand. Only these, and the fields
+ * fixed at mating, are replicated, so clients interpolate her lifespan without the server sending anything between
+ * restarts. The authority keeps the time of the last applied tick to itself.
  */
 public final class MatedComponent implements Component<MatedComponent>, ItemDifferentiating {
     /**
-     * An entity containing the genetics component of the drone that mated with the queen.
+     * The {@link PackedGenome packed genome} of the drone that mated with the queen.
+     */
+    @Replicate
+    public long mateGenome;
+
+    /**
+     * An entity containing the genetics component of the drone that mated with the queen, as saved by earlier versions.
+     * Migrated into {@link #mateGenome} when the queen is loaded, after which it is {@link EntityRef#NULL}.
      */
-    public EntityRef container;
+    @Deprecated
+    public EntityRef container = EntityRef.NULL;
 
     /**
-     * The number of ticks remaining in the lifespan of the queen.
+     * The number of ticks remaining in the lifespan of the queen, as saved by earlier versions. Migrated into
+     * {@link #startTime} and {@link #tickTime} when the queen is loaded.
      */
+    @Deprecated
     public int ticksRemaining;
 
     /**
      * The total ticks in the entire lifespan of this queen.
      */
+    @Replicate
     public int lifespan;
 
+    /**
+     * The game time, in milliseconds, from which the queen's life ticks are counted. Moved forward whenever her ticks
+     * are restarted, by the time they were paused.
+     */
+    @Replicate
+    public long startTime;
+
+    /**
+     * The time, in milliseconds, between two life ticks of the queen. Zero for queens saved by earlier versions that
+     * have not been migrated yet.
+     */
+    @Replicate
+    public long tickTime;
+
+    /**
+     * The game time, in milliseconds, of the queen's last applied life tick, or of her mating if she has not ticked yet.
+     * Zero if unknown, as for queens saved by earlier versions. Advanced in place by every life tick, without saving
+     * the component.
+     */
+    public long lastTickTime;
+
     public MatedComponent() { }
 
-    public MatedComponent(GeneticsComponent geneticsComponent, int lifespan, EntityManager entityManager) {
-        container = entityManager.create(geneticsComponent);
+    public MatedComponent(long mateGenome, int lifespan, long tickTime, long matingTime) {
+        this.mateGenome = mateGenome;
         this.lifespan = lifespan;
-        ticksRemaining = lifespan;
+        this.tickTime = tickTime;
+        startTime = matingTime;
+        lastTickTime = matingTime;
+    }
+
+    /**
+     * @return The number of ticks remaining in the queen's lifespan after her last applied tick.
+     */
+    public int getTicksRemaining() {
+        return getTicksRemaining(lastTickTime);
+    }
+
+    /**
+     * @param time A game time, in milliseconds.
+     * @return The number of ticks remaining in the queen's lifespan at the given time, had she ticked all along.
+     */
+    public int getTicksRemaining(long time) {
+        if (tickTime <= 0) {
+            return lifespan;
+        }
+        return (int) Math.max(0L, Math.min(lifespan, lifespan - (time - startTime) / tickTime));
     }
 
+    /**
+     * Interpolates the fraction of the queen's lifespan remaining at a given time, for display.
+     *
+     * @param time A game time, in milliseconds.
+     * @return The fraction of her lifespan remaining, between 0 and 1.
+     */
+    public float getRemainingFraction(long time) {
+        if (tickTime <= 0 || lifespan <= 0) {
+            return 1f;
+        }
+        float elapsed = (time - startTime) / (float) (lifespan * tickTime);
+        return Math.max(0f, Math.min(1f, 1f - elapsed));
+    }
+
+    /**
+     * Restarts the queen's life ticks at a given time, keeping the ticks she has left, as when she is placed into an
+     * apiary.
+     *
+     * @param time The game time, in milliseconds, to restart at.
+     * @param queenTickTime The tick time of the queen from now on.
+     */
+    public void restart(long time, long queenTickTime) {
+        int ticksElapsed = lifespan - getTicksRemaining();
+        tickTime = queenTickTime;
+        startTime = time - ticksElapsed * queenTickTime;
+        lastTickTime = time;
+    }
+
+    /**
+     * Expresses the remaining lifespan saved by earlier versions as a start time and tick interval.
+     *
+     * @param queenTickTime The tick time of the queen, following from her speed gene.
+     * @return Whether the lifespan needed migrating, in which case the component needs saving.
+     */
+    @SuppressWarnings("deprecation")
+    public boolean migrateLifespan(long queenTickTime) {
+        if (tickTime > 0) {
+            return false;
+        }
+        tickTime = queenTickTime;
+        startTime = lastTickTime - (long) (lifespan - ticksRemaining) * tickTime;
+        ticksRemaining = 0;
+        return true;
+    }
+
+    /**
+     * Moves the mate's genome out of a container entity saved by earlier versions, destroying the container.
+     *
+     * @return Whether there was a container to migrate, in which case the component needs saving.
+     */
+    @SuppressWarnings("deprecation")
+    public boolean migrateContainer() {
+        if (container == null || !container.exists()) {
+            return false;
+        }
+        GeneticsComponent geneticsComponent = container.getComponent(GeneticsComponent.class);
+        if (geneticsComponent != null) {
+            mateGenome = PackedGenome.pack(geneticsComponent);
+        }
+        container.destroy();
+        container = EntityRef.NULL;
+        return true;
+    }
+
+    @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (!(o instanceof MatedComponent)) {
             return false;
         }
         MatedComponent matedComponent = ((MatedComponent) o);
-        return ticksRemaining == matedComponent.ticksRemaining && lifespan == matedComponent.lifespan
-                && container.getComponent(GeneticsComponent.class).equals(container.getComponent(GeneticsComponent.class));
+        return lifespan == matedComponent.lifespan && mateGenome == matedComponent.mateGenome
+                && startTime == matedComponent.startTime && tickTime == matedComponent.tickTime;
     }
 
+    @Override
     public int hashCode() {
-        return Objects.hash(ticksRemaining, lifespan, container.getComponent(GeneticsComponent.class));
+        int result = lifespan;
+        result = 31 * result + Long.hashCode(mateGenome);
+        result = 31 * result + Long.hashCode(startTime);
+        return 31 * result + Long.hashCode(tickTime);
     }
 
     @Override
+    @SuppressWarnings("deprecation")
     public void copyFrom(MatedComponent other) {
+        this.mateGenome = other.mateGenome;
         this.container = other.container;
         this.ticksRemaining = other.ticksRemaining;
         this.lifespan = other.lifespan;
+        this.startTime = other.startTime;
+        this.tickTime = other.tickTime;
+        this.lastTickTime = other.lastTickTime;
     }
 }
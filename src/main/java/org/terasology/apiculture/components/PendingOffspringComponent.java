@@ -0,0 +1,92 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.components;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.Arrays;
+
+/**
+ * Stores offspring born into an apiary whose output was full, as packed genomes, until output slots free up.
+ *
+ * Identical drones are stored once, with a count, the way they would stack in the output.
+ *
+ * @see org.terasology.apiculture.genetics.PackedGenome
+ */
+public final class PendingOffspringComponent implements Component<PendingOffspringComponent> {
+    /**
+     * The packed genomes of the pending princesses, in birth order.
+     */
+    public long[] princesses = new long[0];
+
+    /**
+     * The distinct packed genomes of the pending drones, in order of the first birth of each.
+     */
+    public long[] droneGenomes = new long[0];
+
+    /**
+     * The number of pending drones of each genome in {@link #droneGenomes}.
+     */
+    public int[] droneCounts = new int[0];
+
+    /**
+     * @return Whether no offspring are pending.
+     */
+    public boolean isEmpty() {
+        return princesses.length == 0 && droneGenomes.length == 0;
+    }
+
+    /**
+     * @param genome The packed genome of the princess to add.
+     */
+    public void addPrincess(long genome) {
+        princesses = Arrays.copyOf(princesses, princesses.length + 1);
+        princesses[princesses.length - 1] = genome;
+    }
+
+    /**
+     * Adds drones, merging them with the pending drones of the same genome.
+     *
+     * @param genome The packed genome of the drones.
+     * @param count The number of drones to add.
+     */
+    public void addDrones(long genome, int count) {
+        for (int i = 0; i < droneGenomes.length; i++) {
+            if (droneGenomes[i] == genome) {
+                droneCounts[i] += count;
+                return;
+            }
+        }
+        droneGenomes = Arrays.copyOf(droneGenomes, droneGenomes.length + 1);
+        droneCounts = Arrays.copyOf(droneCounts, droneCounts.length + 1);
+        droneGenomes[droneGenomes.length - 1] = genome;
+        droneCounts[droneCounts.length - 1] = count;
+    }
+
+    /**
+     * Removes the first princesses, and every drone genome whose count has dropped to zero.
+     *
+     * @param placedPrincesses The number of princesses to remove from the start.
+     */
+    public void compact(int placedPrincesses) {
+        princesses = Arrays.copyOfRange(princesses, placedPrincesses, princesses.length);
+
+        int kept = 0;
+        for (int i = 0; i < droneGenomes.length; i++) {
+            if (droneCounts[i] > 0) {
+                droneGenomes[kept] = droneGenomes[i];
+                droneCounts[kept] = droneCounts[i];
+                kept++;
+            }
+        }
+        droneGenomes = Arrays.copyOf(droneGenomes, kept);
+        droneCounts = Arrays.copyOf(droneCounts, kept);
+    }
+
+    @Override
+    public void copyFrom(PendingOffspringComponent other) {
+        this.princesses = other.princesses.clone();
+        this.droneGenomes = other.droneGenomes.clone();
+        this.droneCounts = other.droneCounts.clone();
+    }
+}
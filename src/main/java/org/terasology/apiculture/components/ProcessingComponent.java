@@ -2,23 +2,45 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.apiculture.components;
 
+import org.terasology.engine.network.Replicate;
 import org.terasology.gestalt.entitysystem.component.Component;
 
 /**
  * Indicates to screens that processes are occurring in an apiary, extractor, or injector, and at what game time they will
  * complete.
+ *
+ * The component is only saved when a process starts or ends, or when the finished jobs of a queue are completed ahead
+ * of the rest. Clients predict the progress in between from the replicated start and finish times, so that a running
+ * machine causes no network updates.
  */
 public final class ProcessingComponent implements Component<ProcessingComponent> {
+    /** The game time at which processing started, or 0 if only the finish time is known. */
+    @Replicate
+    public long startTime;
+
+    @Replicate
     public long finishTime;
 
+    /** The number of queued jobs, which complete one after another between the start and finish times. */
+    @Replicate
+    public int jobCount = 1;
+
     public ProcessingComponent() { }
 
     public ProcessingComponent(long finishTime) {
         this.finishTime = finishTime;
     }
 
+    public ProcessingComponent(long startTime, long finishTime, int jobCount) {
+        this.startTime = startTime;
+        this.finishTime = finishTime;
+        this.jobCount = jobCount;
+    }
+
     @Override
     public void copyFrom(ProcessingComponent other) {
+        this.startTime = other.startTime;
         this.finishTime = other.finishTime;
+        this.jobCount = other.jobCount;
     }
 }
@@ -0,0 +1,113 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.genetics;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Combines two parent genomes into offspring genomes, working on {@link PackedGenome packed genomes} without allocating.
+ *
+ * Follows the rules of SoundyGenetics' {@code Genome.combine}: each offspring either mutates, if the parents' active
+ * genotypes at a locus match a registered mutation and its chance succeeds, or receives one randomly chosen gene from
+ * each parent at every locus, with a random one of the two being active.
+ *
+ * Once all mutations are registered, a recombiner may be shared between threads, as long as each uses its own random.
+ */
+public class GenomeRecombiner {
+    private final int size;
+
+    private int[] mutationLoci = new int[0];
+    private int[] mutationGenotypesA = new int[0];
+    private int[] mutationGenotypesB = new int[0];
+    private long[] mutationResults = new long[0];
+    private double[] mutationChances = new double[0];
+
+    /**
+     * @param size The number of loci in the genomes to combine.
+     */
+    public GenomeRecombiner(int size) {
+        if (size > PackedGenome.MAX_LOCI) {
+            throw new IllegalArgumentException("Packed genomes hold at most " + PackedGenome.MAX_LOCI + " loci");
+        }
+        this.size = size;
+    }
+
+    /**
+     * @return The number of loci in the genomes this recombiner combines.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Registers a mutation, which may occur when the parents' active genotypes at a locus are the given pair.
+     *
+     * @param locus The locus to check.
+     * @param genotypeA One genotype of the pair, from either parent.
+     * @param genotypeB The other genotype of the pair.
+     * @param result The packed genome of a mutated offspring.
+     * @param chance The chance of the mutation occurring.
+     */
+    public void registerMutation(int locus, int genotypeA, int genotypeB, long result, float chance) {
+        int index = mutationLoci.length;
+        mutationLoci = Arrays.copyOf(mutationLoci, index + 1);
+        mutationGenotypesA = Arrays.copyOf(mutationGenotypesA, index + 1);
+        mutationGenotypesB = Arrays.copyOf(mutationGenotypesB, index + 1);
+        mutationResults = Arrays.copyOf(mutationResults, index + 1);
+        mutationChances = Arrays.copyOf(mutationChances, index + 1);
+
+        mutationLoci[index] = locus;
+        mutationGenotypesA[index] = genotypeA;
+        mutationGenotypesB[index] = genotypeB;
+        mutationResults[index] = result;
+        mutationChances[index] = chance;
+    }
+
+    /**
+     * Combines two parent genomes into a single offspring genome.
+     *
+     * @param mother The packed genome of the first parent.
+     * @param father The packed genome of the second parent.
+     * @param random The random source to use.
+     * @return The packed genome of the offspring.
+     */
+    public long recombine(long mother, long father, SplittableRandom random) {
+        for (int i = 0; i < mutationLoci.length; i++) {
+            int motherGenotype = PackedGenome.getActive(mother, mutationLoci[i]);
+            int fatherGenotype = PackedGenome.getActive(father, mutationLoci[i]);
+            if ((motherGenotype == mutationGenotypesA[i] && fatherGenotype == mutationGenotypesB[i]
+                    || motherGenotype == mutationGenotypesB[i] && fatherGenotype == mutationGenotypesA[i])
+                    && random.nextDouble() < mutationChances[i]) {
+                return mutationResults[i];
+            }
+        }
+
+        long offspring = 0;
+        for (int locus = 0; locus < size; locus++) {
+            int fromMother = random.nextBoolean() ? PackedGenome.getActive(mother, locus) : PackedGenome.getInactive(mother, locus);
+            int fromFather = random.nextBoolean() ? PackedGenome.getActive(father, locus) : PackedGenome.getInactive(father, locus);
+            if (random.nextBoolean()) {
+                offspring = PackedGenome.withLocus(offspring, locus, fromMother, fromFather);
+            } else {
+                offspring = PackedGenome.withLocus(offspring, locus, fromFather, fromMother);
+            }
+        }
+        return offspring;
+    }
+
+    /**
+     * Combines two parent genomes into a number of offspring genomes, written into a reusable buffer.
+     *
+     * @param mother The packed genome of the first parent.
+     * @param father The packed genome of the second parent.
+     * @param random The random source to use.
+     * @param buffer The buffer to write the offspring genomes into, from index 0.
+     * @param count The number of offspring to generate.
+     */
+    public void recombine(long mother, long father, SplittableRandom random, long[] buffer, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer[i] = recombine(mother, father, random);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.genetics;
+
+import org.terasology.genetics.components.GeneticsComponent;
+
+/**
+ * Helpers for genomes packed into a single {@code long}, as an allocation-free alternative to {@link GeneticsComponent}.
+ *
+ * Each locus takes 8 bits: the active genotype in the low 4 bits, and the inactive genotype in the high 4 bits. A packed
+ * genome therefore holds up to {@link #MAX_LOCI} loci, with genotypes from 0 to {@link #MAX_GENOTYPE}.
+ */
+public final class PackedGenome {
+    /** The maximum number of loci in a packed genome. */
+    public static final int MAX_LOCI = 8;
+
+    /** The highest genotype that can be stored in a packed genome. */
+    public static final int MAX_GENOTYPE = 15;
+
+    private static final int BITS_PER_LOCUS = 8;
+    private static final int INACTIVE_SHIFT = 4;
+
+    private PackedGenome() { }
+
+    /**
+     * @param genome The packed genome.
+     * @param locus The locus to read.
+     * @return The active genotype at the locus.
+     */
+    public static int getActive(long genome, int locus) {
+        return (int) (genome >>> (locus * BITS_PER_LOCUS)) & MAX_GENOTYPE;
+    }
+
+    /**
+     * @param genome The packed genome.
+     * @param locus The locus to read.
+     * @return The inactive genotype at the locus.
+     */
+    public static int getInactive(long genome, int locus) {
+        return (int) (genome >>> (locus * BITS_PER_LOCUS + INACTIVE_SHIFT)) & MAX_GENOTYPE;
+    }
+
+    /**
+     * @param genome The packed genome.
+     * @param locus The locus to replace.
+     * @param active The new active genotype.
+     * @param inactive The new inactive genotype.
+     * @return The packed genome with the genotypes at the locus replaced.
+     */
+    public static long withLocus(long genome, int locus, int active, int inactive) {
+        int shift = locus * BITS_PER_LOCUS;
+        long value = (active & MAX_GENOTYPE) | ((inactive & MAX_GENOTYPE) << INACTIVE_SHIFT);
+        return (genome & ~(0xFFL << shift)) | (value << shift);
+    }
+
+    /**
+     * @param active The active genotypes, indexed by locus.
+     * @param inactive The inactive genotypes, indexed by locus.
+     * @return The packed genome.
+     */
+    public static long pack(int[] active, int[] inactive) {
+        long genome = 0;
+        for (int locus = 0; locus < active.length; locus++) {
+            genome = withLocus(genome, locus, active[locus], inactive[locus]);
+        }
+        return genome;
+    }
+
+    /**
+     * @param genetics The genetics to pack, with at most {@link #MAX_LOCI} loci.
+     * @return The packed genome.
+     */
+    public static long pack(GeneticsComponent genetics) {
+        long genome = 0;
+        for (int locus = 0; locus < genetics.size; locus++) {
+            genome = withLocus(genome, locus, genetics.activeGenes.get(locus), genetics.inactiveGenes.get(locus));
+        }
+        return genome;
+    }
+
+    /**
+     * Creates a genetics component from a packed genome.
+     *
+     * @param genome The packed genome.
+     * @param size The number of loci in the genome.
+     * @return A new genetics component with the genome's genotypes.
+     */
+    public static GeneticsComponent inflate(long genome, int size) {
+        GeneticsComponent genetics = new GeneticsComponent(size);
+        for (int locus = 0; locus < size; locus++) {
+            genetics.activeGenes.add(getActive(genome, locus));
+            genetics.inactiveGenes.add(getInactive(genome, locus));
+        }
+        return genetics;
+    }
+}
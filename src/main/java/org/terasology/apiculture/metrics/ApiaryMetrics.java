@@ -0,0 +1,280 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.registry.Share;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Records how much work the apiculture machines do on the authority, and how much server time it takes.
+ *
+ * The machine systems count the work they complete, time their handlers, and record how late their delayed actions
+ * fire compared to the finish time of the machine's processing. Recording only touches preallocated arrays on the main
+ * thread. At the end of each reporting interval the metrics are passed to the registered {@link MetricsSink}s and added
+ * to the totals shown by the {@code beeMetrics} console command.
+ *
+ * A {@link MachineProfile} can also be started to sample handler timings and count the events of each machine for a
+ * limited time, for finding the machines responsible for a lag spike.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+@Share(ApiaryMetrics.class)
+public class ApiaryMetrics extends BaseComponentSystem implements UpdateSubscriberSystem {
+    /** The real time, in milliseconds, between reports to the metrics sinks. */
+    public static final long REPORT_INTERVAL = 60000L;
+
+    /**
+     * The work counted by the machine systems.
+     */
+    public enum Counter {
+        LIFE_TICKS,
+        MATINGS,
+        BIRTHS,
+        PRODUCE,
+        EXTRACTIONS,
+        INJECTIONS
+    }
+
+    /**
+     * The handlers timed by the machine systems. Scheduling lag is only recorded for those completing processing, and
+     * for life ticks, per apiary, against the time each tick came due.
+     */
+    public enum Handler {
+        APIARY_UPDATE,
+        APIARY_ACTIVATION,
+        LIFE_TICK,
+        MATING,
+        EXTRACTOR_UPDATE,
+        EXTRACTION,
+        INJECTOR_UPDATE,
+        INJECTION
+    }
+
+    /**
+     * The values sampled whenever a snapshot is taken.
+     */
+    public enum Gauge {
+        ACTIVE_APIARIES
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiaryMetrics.class);
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final long[] counters = new long[Counter.values().length];
+    private final LatencyHistogram[] latencies = createHistograms();
+    private final LatencyHistogram[] lags = createHistograms();
+    private long intervalStart = System.nanoTime();
+
+    private final long[] counterTotals = new long[Counter.values().length];
+    private final LatencyHistogram[] latencyTotals = createHistograms();
+    private final LatencyHistogram[] lagTotals = createHistograms();
+    private long totalStart = intervalStart;
+
+    private final LongSupplier[] gauges = new LongSupplier[Gauge.values().length];
+    private final List<MetricsSink> sinks = new ArrayList<>();
+
+    /** The current or last profiling session, or null if none has been started. */
+    private MachineProfile profile;
+
+    /**
+     * Finishes the profiling session once its time is up, and reports the metrics to the sinks once the reporting
+     * interval has passed.
+     */
+    @Override
+    public void update(float delta) {
+        long now = System.nanoTime();
+        if (profile != null && profile.isRunning() && profile.isExpired(now)) {
+            profile.finish(now);
+            logger.info("Apiculture profile finished, {} machines active\n{}", profile.getMachineCount(),
+                    profile.formatTimings());
+        }
+        if (now - intervalStart < REPORT_INTERVAL * NANOS_PER_MILLI) {
+            return;
+        }
+        if (!sinks.isEmpty()) {
+            MetricsSnapshot snapshot = new MetricsSnapshot((now - intervalStart) / NANOS_PER_MILLI, counters.clone(),
+                    sampleGauges(), copy(latencies), copy(lags));
+            for (MetricsSink sink : sinks) {
+                sink.report(snapshot);
+            }
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counterTotals[i] += counters[i];
+            counters[i] = 0;
+        }
+        for (int i = 0; i < latencies.length; i++) {
+            latencyTotals[i].add(latencies[i]);
+            latencies[i].reset();
+            lagTotals[i].add(lags[i]);
+            lags[i].reset();
+        }
+        intervalStart = now;
+    }
+
+    /**
+     * @param counter The counter to increment by one.
+     */
+    public void increment(Counter counter) {
+        counters[counter.ordinal()]++;
+    }
+
+    /**
+     * @param counter The counter to increment.
+     * @param amount The amount to increment it by.
+     */
+    public void add(Counter counter, long amount) {
+        counters[counter.ordinal()] += amount;
+    }
+
+    /**
+     * @return The start time to pass to {@link #recordLatency} once the handler is done.
+     */
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time a handler took.
+     *
+     * @param handler The handler that ran.
+     * @param startTime The time returned by {@link #startTimer} when it started.
+     */
+    public void recordLatency(Handler handler, long startTime) {
+        long micros = (System.nanoTime() - startTime) / 1000L;
+        latencies[handler.ordinal()].record(micros);
+        if (profile != null && profile.isRunning()) {
+            profile.recordLatency(handler, micros);
+        }
+    }
+
+    /**
+     * Records an event completed by a machine, such as a life tick or an extraction, if a profile is running.
+     *
+     * @param machine The machine that completed the event.
+     */
+    public void recordEvent(EntityRef machine) {
+        if (profile != null && profile.isRunning()) {
+            profile.recordEvent(machine);
+        }
+    }
+
+    /**
+     * Starts a profiling session, replacing the current or last one.
+     *
+     * @param duration The real time, in milliseconds, to profile for.
+     * @return The new session.
+     */
+    public MachineProfile startProfile(long duration) {
+        profile = new MachineProfile(System.nanoTime(), duration);
+        return profile;
+    }
+
+    /**
+     * @return The current or last profiling session, or null if none has been started.
+     */
+    public MachineProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Records how late a handler completing some processing ran.
+     *
+     * @param handler The handler that ran.
+     * @param lag The game time, in milliseconds, between the processing's finish time and the handler running.
+     */
+    public void recordLag(Handler handler, long lag) {
+        lags[handler.ordinal()].record(lag);
+    }
+
+    /**
+     * Sets the function sampling a gauge, replacing any set before.
+     *
+     * @param gauge The gauge to set.
+     * @param supplier The function returning its current value.
+     */
+    public void registerGauge(Gauge gauge, LongSupplier supplier) {
+        gauges[gauge.ordinal()] = supplier;
+    }
+
+    public void addSink(MetricsSink sink) {
+        sinks.add(sink);
+    }
+
+    public void removeSink(MetricsSink sink) {
+        sinks.remove(sink);
+    }
+
+    public boolean hasSink(MetricsSink sink) {
+        return sinks.contains(sink);
+    }
+
+    /**
+     * @return The metrics recorded since they were last reset, including the current reporting interval.
+     */
+    public MetricsSnapshot getTotals() {
+        long[] totals = counterTotals.clone();
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] += counters[i];
+        }
+        LatencyHistogram[] latencySnapshot = copy(latencyTotals);
+        LatencyHistogram[] lagSnapshot = copy(lagTotals);
+        for (int i = 0; i < latencySnapshot.length; i++) {
+            latencySnapshot[i].add(latencies[i]);
+            lagSnapshot[i].add(lags[i]);
+        }
+        return new MetricsSnapshot((System.nanoTime() - totalStart) / NANOS_PER_MILLI, totals, sampleGauges(),
+                latencySnapshot, lagSnapshot);
+    }
+
+    /**
+     * Discards the totals and the current reporting interval.
+     */
+    public void reset() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = 0;
+            counterTotals[i] = 0;
+        }
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i].reset();
+            lags[i].reset();
+            latencyTotals[i].reset();
+            lagTotals[i].reset();
+        }
+        intervalStart = System.nanoTime();
+        totalStart = intervalStart;
+    }
+
+    private long[] sampleGauges() {
+        long[] values = new long[gauges.length];
+        for (int i = 0; i < gauges.length; i++) {
+            values[i] = gauges[i] != null ? gauges[i].getAsLong() : 0;
+        }
+        return values;
+    }
+
+    private static LatencyHistogram[] createHistograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[Handler.values().length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    private static LatencyHistogram[] copy(LatencyHistogram[] histograms) {
+        LatencyHistogram[] copies = new LatencyHistogram[histograms.length];
+        for (int i = 0; i < histograms.length; i++) {
+            copies[i] = histograms[i].copy();
+        }
+        return copies;
+    }
+}
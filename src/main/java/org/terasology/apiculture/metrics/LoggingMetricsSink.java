@@ -0,0 +1,18 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the metrics of each reporting interval to the log.
+ */
+public class LoggingMetricsSink implements MetricsSink {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingMetricsSink.class);
+
+    @Override
+    public void report(MetricsSnapshot snapshot) {
+        logger.info("Apiculture metrics:\n{}", snapshot.format());
+    }
+}
@@ -0,0 +1,114 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.metrics;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A profiling session started by {@link ApiaryMetrics#startProfile}, sampling handler timings and counting the events
+ * of each machine for a limited time.
+ *
+ * Unlike the metrics themselves, the events are counted per machine, so sessions are meant to be short.
+ */
+public final class MachineProfile {
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final long startTime;
+    private final long endTime;
+    private long finishTime;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[ApiaryMetrics.Handler.values().length];
+    private final Map<EntityRef, long[]> machineEvents = new HashMap<>();
+
+    MachineProfile(long startTime, long duration) {
+        this.startTime = startTime;
+        this.endTime = startTime + duration * NANOS_PER_MILLI;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    void recordLatency(ApiaryMetrics.Handler handler, long micros) {
+        latencies[handler.ordinal()].record(micros);
+    }
+
+    void recordEvent(EntityRef machine) {
+        machineEvents.computeIfAbsent(machine, key -> new long[1])[0]++;
+    }
+
+    /**
+     * @param now The current time, as returned by {@link System#nanoTime()}.
+     * @return Whether the session should stop sampling.
+     */
+    boolean isExpired(long now) {
+        return now - endTime >= 0;
+    }
+
+    void finish(long now) {
+        finishTime = now;
+    }
+
+    /**
+     * @return Whether the session is still sampling.
+     */
+    public boolean isRunning() {
+        return finishTime == 0;
+    }
+
+    /**
+     * @return The real time, in milliseconds, the session has sampled for so far.
+     */
+    public long getElapsed() {
+        return ((isRunning() ? System.nanoTime() : finishTime) - startTime) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return The real time, in milliseconds, the session was started for.
+     */
+    public long getDuration() {
+        return (endTime - startTime) / NANOS_PER_MILLI;
+    }
+
+    public LatencyHistogram getLatency(ApiaryMetrics.Handler handler) {
+        return latencies[handler.ordinal()];
+    }
+
+    /**
+     * @param count The maximum number of machines to list.
+     * @return The machines with the most events during the session and their event counts, busiest first.
+     */
+    public List<Map.Entry<EntityRef, Long>> getBusiestMachines(int count) {
+        List<Map.Entry<EntityRef, Long>> machines = new ArrayList<>(machineEvents.size());
+        for (Map.Entry<EntityRef, long[]> entry : machineEvents.entrySet()) {
+            machines.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()[0]));
+        }
+        machines.sort(Map.Entry.<EntityRef, Long>comparingByValue().reversed());
+        return machines.subList(0, Math.min(count, machines.size()));
+    }
+
+    /**
+     * @return The number of machines that had events during the session.
+     */
+    public int getMachineCount() {
+        return machineEvents.size();
+    }
+
+    /**
+     * @return A human-readable summary of the handler timings sampled, one handler per line.
+     */
+    public String formatTimings() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Sampled %.1fs of %.1fs%s:", getElapsed() / 1000.0, getDuration() / 1000.0,
+                isRunning() ? " (running)" : ""));
+        for (ApiaryMetrics.Handler handler : ApiaryMetrics.Handler.values()) {
+            MetricsSnapshot.appendHistogram(sb, handler.name().toLowerCase(Locale.ROOT), getLatency(handler), "us");
+        }
+        return sb.toString();
+    }
+}
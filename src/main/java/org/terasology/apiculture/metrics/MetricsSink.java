@@ -0,0 +1,17 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.metrics;
+
+/**
+ * Receives the apiculture metrics recorded over each reporting interval of the {@link ApiaryMetrics}, for exporting them
+ * to a log or a monitoring system.
+ */
+@FunctionalInterface
+public interface MetricsSink {
+    /**
+     * Called on the main thread at the end of each reporting interval.
+     *
+     * @param snapshot The metrics recorded over the interval. The snapshot is not modified afterwards.
+     */
+    void report(MetricsSnapshot snapshot);
+}
@@ -0,0 +1,95 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.metrics;
+
+import java.util.Locale;
+
+/**
+ * The apiculture metrics recorded over a period of time, as reported to {@link MetricsSink}s and the console.
+ *
+ * Handler latencies are in microseconds, and scheduling lags in milliseconds of game time.
+ */
+public final class MetricsSnapshot {
+    private final long duration;
+    private final long[] counters;
+    private final long[] gauges;
+    private final LatencyHistogram[] latencies;
+    private final LatencyHistogram[] lags;
+
+    MetricsSnapshot(long duration, long[] counters, long[] gauges, LatencyHistogram[] latencies, LatencyHistogram[] lags) {
+        this.duration = duration;
+        this.counters = counters;
+        this.gauges = gauges;
+        this.latencies = latencies;
+        this.lags = lags;
+    }
+
+    /**
+     * @return The real time, in milliseconds, over which the metrics were recorded.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public long getCount(ApiaryMetrics.Counter counter) {
+        return counters[counter.ordinal()];
+    }
+
+    /**
+     * @param counter The counter to get the rate of.
+     * @return The average number of counts per second of real time.
+     */
+    public double getRate(ApiaryMetrics.Counter counter) {
+        return duration <= 0 ? 0 : getCount(counter) * 1000.0 / duration;
+    }
+
+    /**
+     * @param gauge The gauge to get.
+     * @return The value of the gauge when the snapshot was taken.
+     */
+    public long getGauge(ApiaryMetrics.Gauge gauge) {
+        return gauges[gauge.ordinal()];
+    }
+
+    public LatencyHistogram getLatency(ApiaryMetrics.Handler handler) {
+        return latencies[handler.ordinal()];
+    }
+
+    public LatencyHistogram getLag(ApiaryMetrics.Handler handler) {
+        return lags[handler.ordinal()];
+    }
+
+    /**
+     * @return A human-readable summary of the metrics, one per line. Handlers that did not run are left out.
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Over %.1fs:", duration / 1000.0));
+        for (ApiaryMetrics.Counter counter : ApiaryMetrics.Counter.values()) {
+            sb.append(String.format(Locale.ROOT, "\n  %s: %d (%.1f/s)", name(counter), getCount(counter), getRate(counter)));
+        }
+        for (ApiaryMetrics.Gauge gauge : ApiaryMetrics.Gauge.values()) {
+            sb.append(String.format(Locale.ROOT, "\n  %s: %d", name(gauge), getGauge(gauge)));
+        }
+        for (ApiaryMetrics.Handler handler : ApiaryMetrics.Handler.values()) {
+            appendHistogram(sb, name(handler) + " latency", getLatency(handler), "us");
+        }
+        for (ApiaryMetrics.Handler handler : ApiaryMetrics.Handler.values()) {
+            appendHistogram(sb, name(handler) + " lag", getLag(handler), "ms");
+        }
+        return sb.toString();
+    }
+
+    static void appendHistogram(StringBuilder sb, String name, LatencyHistogram histogram, String unit) {
+        if (histogram.getCount() == 0) {
+            return;
+        }
+        sb.append(String.format(Locale.ROOT, "\n  %s: n=%d mean=%.1f%s p50<=%d%s p99<=%d%s max=%d%s", name,
+                histogram.getCount(), histogram.getMean(), unit, histogram.getPercentile(0.5), unit,
+                histogram.getPercentile(0.99), unit, histogram.getMax(), unit));
+    }
+
+    private static String name(Enum<?> metric) {
+        return metric.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,174 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.pedigree;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.core.PathManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.game.Game;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * An optional append-only log of every birth in an apiary: the queen's and her mate's genomes, the genomes of their
+ * offspring, the apiary and the game time.
+ *
+ * The log is disabled by default. When enabled, recording a birth appends it to an in-memory buffer, which a
+ * {@link PedigreeWriter} writes to disk in the background in segments of {@link #SEGMENT_SIZE}. Buffers are handed off
+ * once full, and otherwise every {@link #FLUSH_INTERVAL}. The log is read back with a {@link PedigreeReader} per segment.
+ *
+ * Records identify apiaries by entity id, which is only meaningful within one world, so each save has a log of its own.
+ * The log is closed when the world is unloaded, and reopened in the new save's directory if the game changes while it
+ * is enabled.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+@Share(PedigreeLog.class)
+public class PedigreeLog extends BaseComponentSystem implements UpdateSubscriberSystem {
+    /** The size, in bytes, after which a segment of the log is rotated. */
+    public static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    /** The time, in seconds, after which records are handed to the writer even if their buffer is not full. */
+    public static final float FLUSH_INTERVAL = 5f;
+
+    private static final Logger logger = LoggerFactory.getLogger(PedigreeLog.class);
+
+    @In
+    private Game game;
+
+    private Path directory;
+    private PedigreeWriter writer;
+    private String writerGame;
+    private float timeSinceFlush;
+
+    @Override
+    public void update(float delta) {
+        if (writer == null) {
+            return;
+        }
+        if (directory == null && !game.getName().equals(writerGame)) {
+            reopen();
+        }
+        timeSinceFlush += delta;
+        if (timeSinceFlush >= FLUSH_INTERVAL) {
+            writer.flush();
+            timeSinceFlush = 0;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        setEnabled(false);
+        directory = null;
+    }
+
+    /**
+     * Records a birth, if the log is enabled.
+     *
+     * @param apiary The apiary the birth happened in.
+     * @param gameTime The game time, in milliseconds, of the birth.
+     * @param queenGenome The packed genome of the queen.
+     * @param droneGenome The packed genome of the queen's mate.
+     * @param offspring The packed genomes of the offspring, princess first.
+     * @param offspringCount The number of offspring.
+     */
+    public void recordBirth(EntityRef apiary, long gameTime, long queenGenome, long droneGenome, long[] offspring,
+                            int offspringCount) {
+        if (writer != null) {
+            writer.append(gameTime, apiary.getId(), queenGenome, droneGenome, offspring, offspringCount);
+        }
+    }
+
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    /**
+     * Enables or disables the log. Disabling it writes out every record so far before returning.
+     *
+     * @param enabled Whether to record births.
+     * @return Whether the log is now in the requested state; enabling it fails if the log directory cannot be written.
+     */
+    public boolean setEnabled(boolean enabled) {
+        if (enabled == isEnabled()) {
+            return true;
+        }
+        if (enabled) {
+            return open();
+        }
+        close();
+        return true;
+    }
+
+    private boolean open() {
+        Path logDirectory = getDirectory();
+        try {
+            writer = new PedigreeWriter(logDirectory, SEGMENT_SIZE);
+            writerGame = game.getName();
+            timeSinceFlush = 0;
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to open the pedigree log in {}", logDirectory, e);
+            return false;
+        }
+    }
+
+    private void close() {
+        writer.close();
+        logger.info("Closed the pedigree log after {} births, {} dropped", writer.getAppendedCount(),
+                writer.getDroppedCount());
+        writer = null;
+        writerGame = null;
+    }
+
+    /**
+     * Closes the log of the previous game, and opens the log of the current one.
+     */
+    private void reopen() {
+        close();
+        if (open()) {
+            logger.info("Switched the pedigree log to {}", getDirectory());
+        }
+    }
+
+    /**
+     * @return The directory the log is written to, by default {@code apiculture/pedigree} in the directory of the
+     *         current save.
+     */
+    public Path getDirectory() {
+        if (directory != null) {
+            return directory;
+        }
+        return PathManager.getInstance().getSavePath(game.getName()).resolve("apiculture").resolve("pedigree");
+    }
+
+    /**
+     * Sets the directory the log is written to, from the next time it is enabled, until the world is unloaded.
+     *
+     * @param directory The directory of the log, or null for the default directory of the current save.
+     */
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The number of births recorded since the log was enabled.
+     */
+    public long getRecordedCount() {
+        return writer != null ? writer.getAppendedCount() : 0;
+    }
+
+    /**
+     * @return The number of births dropped since the log was enabled, as the writer could not keep up.
+     */
+    public long getDroppedCount() {
+        return writer != null ? writer.getDroppedCount() : 0;
+    }
+}
@@ -0,0 +1,64 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.pedigree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the records of a single pedigree log segment, memory-mapping it rather than copying it onto the heap.
+ *
+ * Only the part of the segment written when the reader was opened is read. A record cut off at the end, as the segment
+ * of a running log may end in, is ignored.
+ */
+public final class PedigreeReader implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    /**
+     * @param segment The segment to read.
+     * @throws IOException If the segment cannot be opened, or is not a pedigree log segment of a supported version.
+     */
+    public PedigreeReader(Path segment) throws IOException {
+        channel = FileChannel.open(segment, StandardOpenOption.READ);
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < PedigreeSegments.HEADER_SIZE || buffer.getInt() != PedigreeSegments.MAGIC) {
+                throw new IOException("Not a pedigree log segment: " + segment);
+            }
+            int version = buffer.getInt();
+            if (version != PedigreeSegments.VERSION) {
+                throw new IOException("Unsupported pedigree log version " + version + ": " + segment);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @param record The record to read into.
+     * @return Whether a record was read, or the end of the segment was reached.
+     */
+    public boolean next(PedigreeRecord record) {
+        return record.read(buffer);
+    }
+
+    /**
+     * Moves back to the first record of the segment.
+     */
+    public void rewind() {
+        buffer.position(PedigreeSegments.HEADER_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,94 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.pedigree;
+
+import org.terasology.apiculture.genetics.PackedGenome;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A single birth in the pedigree log, reused by {@link PedigreeReader} for every record it reads.
+ *
+ * A record is stored as the game time, the apiary entity id, the queen's and her mate's packed genomes, the number of
+ * offspring as a single byte, and then the packed genome of each offspring, princess first. Every value is big-endian.
+ */
+public final class PedigreeRecord {
+    /** The size, in bytes, of a record without offspring. */
+    static final int BASE_SIZE = 4 * Long.BYTES + 1;
+
+    /** The maximum size, in bytes, of a record. */
+    static final int MAX_SIZE = BASE_SIZE + (1 + PackedGenome.MAX_GENOTYPE) * Long.BYTES;
+
+    /** The game time, in milliseconds, of the birth. */
+    public long gameTime;
+
+    /** The id of the apiary entity the birth happened in. */
+    public long apiary;
+
+    public long queenGenome;
+    public long droneGenome;
+
+    public int offspringCount;
+
+    /** The packed genomes of the offspring, of which the first {@link #offspringCount} belong to this record. */
+    public final long[] offspring = new long[1 + PackedGenome.MAX_GENOTYPE];
+
+    /**
+     * @param genome A packed genome.
+     * @return Whether any offspring of this birth has the genome.
+     */
+    public boolean hasOffspring(long genome) {
+        for (int i = 0; i < offspringCount; i++) {
+            if (offspring[i] == genome) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param offspringCount The number of offspring of a birth.
+     * @return The size, in bytes, of the record of the birth.
+     */
+    static int size(int offspringCount) {
+        return BASE_SIZE + offspringCount * Long.BYTES;
+    }
+
+    static void write(ByteBuffer buffer, long gameTime, long apiary, long queenGenome, long droneGenome, long[] offspring,
+                      int offspringCount) {
+        buffer.putLong(gameTime);
+        buffer.putLong(apiary);
+        buffer.putLong(queenGenome);
+        buffer.putLong(droneGenome);
+        buffer.put((byte) offspringCount);
+        for (int i = 0; i < offspringCount; i++) {
+            buffer.putLong(offspring[i]);
+        }
+    }
+
+    /**
+     * Reads the next record from a buffer into this one.
+     *
+     * @param buffer The buffer to read from.
+     * @return Whether a whole record was read. The buffer is left unchanged if not.
+     */
+    boolean read(ByteBuffer buffer) {
+        if (buffer.remaining() < BASE_SIZE) {
+            return false;
+        }
+        int count = buffer.get(buffer.position() + BASE_SIZE - 1) & 0xFF;
+        if (count > offspring.length || buffer.remaining() < size(count)) {
+            return false;
+        }
+        gameTime = buffer.getLong();
+        apiary = buffer.getLong();
+        queenGenome = buffer.getLong();
+        droneGenome = buffer.getLong();
+        buffer.get();
+        offspringCount = count;
+        for (int i = 0; i < count; i++) {
+            offspring[i] = buffer.getLong();
+        }
+        return true;
+    }
+}
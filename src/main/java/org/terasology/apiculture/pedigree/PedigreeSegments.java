@@ -0,0 +1,84 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.pedigree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The layout of a pedigree log on disk: a directory of numbered segment files, each starting with a small header.
+ */
+public final class PedigreeSegments {
+    /** The magic number at the start of every segment, "APED". */
+    static final int MAGIC = 0x41504544;
+
+    /** The version of the record format. */
+    static final int VERSION = 1;
+
+    /** The size, in bytes, of the segment header. */
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final String PREFIX = "pedigree-";
+    private static final String SUFFIX = ".bin";
+
+    private PedigreeSegments() { }
+
+    /**
+     * @param directory The directory of a pedigree log.
+     * @return The segments of the log, oldest first, or an empty list if the directory does not exist.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public static List<Path> list(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        // Segment numbers are zero-padded, so names sort in order
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * @param directory The directory of a pedigree log.
+     * @param index The number of the segment.
+     * @return The path of the segment.
+     */
+    static Path segment(Path directory, int index) {
+        return directory.resolve(String.format("%s%06d%s", PREFIX, index, SUFFIX));
+    }
+
+    /**
+     * @param segment The path of a segment.
+     * @return The number of the segment, or -1 if the path is not named like one.
+     */
+    static int index(Path segment) {
+        String name = segment.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.flip();
+        return header;
+    }
+}
@@ -0,0 +1,190 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.pedigree;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Appends pedigree records to a log on disk from a background thread.
+ *
+ * Records are appended to the current buffer on the calling thread. Full buffers are handed to the writer thread, which
+ * writes them to the current segment, starting a new segment once it would grow past the segment size, and then hands
+ * them back for reuse. A fixed number of buffers is allocated up front, so if the writer falls behind by all of them,
+ * records are dropped rather than blocking the caller.
+ */
+final class PedigreeWriter {
+    private static final Logger logger = LoggerFactory.getLogger(PedigreeWriter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BUFFER_COUNT = 8;
+
+    /** Handed to the writer thread to stop it. */
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final Path directory;
+    private final long segmentSize;
+
+    private final BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final BlockingQueue<ByteBuffer> fullBuffers = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    private final Thread thread;
+
+    private ByteBuffer current;
+    private long appendedCount;
+    private long droppedCount;
+
+    /** Only accessed from the writer thread. */
+    private FileChannel channel;
+    private int segmentIndex;
+
+    /**
+     * Creates a writer continuing a log after its last segment, and starts its thread.
+     *
+     * @param directory The directory of the log, created if it does not exist.
+     * @param segmentSize The size, in bytes, after which a segment is rotated.
+     * @throws IOException If the directory cannot be created or listed.
+     */
+    PedigreeWriter(Path directory, long segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        for (Path segment : PedigreeSegments.list(directory)) {
+            segmentIndex = Math.max(segmentIndex, PedigreeSegments.index(segment) + 1);
+        }
+
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            freeBuffers.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        current = freeBuffers.poll();
+
+        thread = new Thread(this::run, "Apiculture pedigree writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Appends a record of a birth. Only to be called from a single thread.
+     *
+     * @return Whether the record was appended, or dropped as the writer is too far behind.
+     */
+    boolean append(long gameTime, long apiary, long queenGenome, long droneGenome, long[] offspring, int offspringCount) {
+        if (current.remaining() < PedigreeRecord.size(offspringCount) && !handOff()) {
+            droppedCount++;
+            return false;
+        }
+        PedigreeRecord.write(current, gameTime, apiary, queenGenome, droneGenome, offspring, offspringCount);
+        appendedCount++;
+        return true;
+    }
+
+    /**
+     * Hands the records appended so far to the writer thread, if it has a buffer to spare.
+     */
+    void flush() {
+        if (current.position() > 0) {
+            handOff();
+        }
+    }
+
+    /**
+     * Writes out every record appended so far and stops the writer thread, waiting for it to finish.
+     */
+    void close() {
+        try {
+            if (current.position() > 0) {
+                current.flip();
+                fullBuffers.put(current);
+            }
+            fullBuffers.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while closing the pedigree log, some records may be lost");
+        }
+    }
+
+    long getAppendedCount() {
+        return appendedCount;
+    }
+
+    long getDroppedCount() {
+        return droppedCount;
+    }
+
+    private boolean handOff() {
+        ByteBuffer next = freeBuffers.poll();
+        if (next == null) {
+            return false;
+        }
+        current.flip();
+        fullBuffers.add(current);
+        current = next;
+        return true;
+    }
+
+    private void run() {
+        boolean failed = false;
+        try {
+            while (true) {
+                ByteBuffer buffer = fullBuffers.take();
+                if (buffer == END) {
+                    break;
+                }
+                if (!failed) {
+                    try {
+                        write(buffer);
+                    } catch (IOException e) {
+                        logger.error("Failed to write the pedigree log, further records are discarded", e);
+                        failed = true;
+                    }
+                }
+                buffer.clear();
+                freeBuffers.add(buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeSegment();
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        if (channel != null && channel.position() > PedigreeSegments.HEADER_SIZE
+                && channel.position() + buffer.remaining() > segmentSize) {
+            closeSegment();
+        }
+        if (channel == null) {
+            channel = FileChannel.open(PedigreeSegments.segment(directory, segmentIndex++),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            ByteBuffer header = PedigreeSegments.header();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeSegment() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Failed to close pedigree log segment", e);
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,164 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.simulation;
+
+import org.terasology.apiculture.BeeRegistry;
+import org.terasology.apiculture.MachineRandom;
+import org.terasology.apiculture.genetics.GenomeRecombiner;
+import org.terasology.apiculture.genetics.PackedGenome;
+import org.terasology.apiculture.systems.ApiarySystem;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulates generations of breeding in a farm of apiaries on packed genomes, without entities or a running game.
+ *
+ * Applies the rules of the {@link ApiarySystem}: a mated queen lives for the lifespan and tick time of her genes,
+ * yielding her species' produce on each tick, then gives birth to a princess and as many drones as her offspring count
+ * gene gives, recombined with her mate by the same {@link GenomeRecombiner}. Every apiary then mates the princess with
+ * a random drone of the brood for the next generation, as a player restocking it would. A queen whose brood has no
+ * drones is mated with her own mate again.
+ *
+ * Trait tables, species and produce chances are read from a {@link BeeRegistry}, which needs no game to be set up
+ * through {@link BeeRegistry#setTraits} and {@link BeeRegistry#setSpeciesTable}. Apiaries are simulated in parallel,
+ * each drawing from a random stream derived from the seed and its index, so a run is reproducible regardless of how it
+ * is split between threads. The streams are not those of apiaries in a game.
+ */
+public final class BreedingSimulator {
+    /** The number of apiaries simulated by a single task. Fewer are simulated inline. */
+    private static final int APIARY_BATCH_SIZE = 256;
+
+    private final BeeRegistry beeRegistry;
+    private final GenomeRecombiner recombiner;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a simulator with the mutations of apiaries, running on the common fork-join pool.
+     *
+     * @param beeRegistry The registry to read traits and species from.
+     */
+    public BreedingSimulator(BeeRegistry beeRegistry) {
+        this(beeRegistry, ApiarySystem.createRecombiner(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param beeRegistry The registry to read traits and species from.
+     * @param recombiner The recombiner to generate offspring with, with all its mutations registered.
+     * @param pool The pool to simulate apiaries on.
+     */
+    public BreedingSimulator(BeeRegistry beeRegistry, GenomeRecombiner recombiner, ForkJoinPool pool) {
+        this.beeRegistry = beeRegistry;
+        this.recombiner = recombiner;
+        this.pool = pool;
+    }
+
+    /**
+     * Simulates a farm of apiaries all stocked with the same pair of bees.
+     *
+     * @param princess The packed genome of the princess stocked in every apiary.
+     * @param drone The packed genome of the drone stocked in every apiary.
+     * @param apiaryCount The number of apiaries.
+     * @param generations The number of generations to simulate in each apiary.
+     * @param seed The seed of the simulation.
+     * @return The outcome of the simulation.
+     */
+    public SimulationResult run(long princess, long drone, int apiaryCount, int generations, long seed) {
+        long[] princesses = new long[apiaryCount];
+        long[] drones = new long[apiaryCount];
+        Arrays.fill(princesses, princess);
+        Arrays.fill(drones, drone);
+        return run(princesses, drones, generations, seed);
+    }
+
+    /**
+     * Simulates a farm of apiaries, each stocked with its own pair of bees.
+     *
+     * @param princesses The packed genome of the princess stocked in each apiary.
+     * @param drones The packed genome of the drone stocked in each apiary, at the same index.
+     * @param generations The number of generations to simulate in each apiary.
+     * @param seed The seed of the simulation.
+     * @return The outcome of the simulation.
+     */
+    public SimulationResult run(long[] princesses, long[] drones, int generations, long seed) {
+        if (princesses.length != drones.length) {
+            throw new IllegalArgumentException("Every apiary needs both a princess and a drone");
+        }
+        long startTime = System.nanoTime();
+        SimulateApiaries task = new SimulateApiaries(princesses, drones, generations, seed, 0, princesses.length);
+        SimulationResult result = princesses.length <= APIARY_BATCH_SIZE ? task.compute() : pool.invoke(task);
+        result.setElapsedTime((System.nanoTime() - startTime) / 1000000L);
+        return result;
+    }
+
+    /**
+     * Simulates every generation of a single apiary.
+     */
+    private void simulateApiary(long princess, long drone, int generations, SplittableRandom random, long[] offspring,
+                                SimulationResult result) {
+        long queen = princess;
+        long mate = drone;
+        for (int generation = 0; generation < generations; generation++) {
+            int species = PackedGenome.getActive(queen, ApiarySystem.LOCUS_SPECIES);
+            int lifespan = beeRegistry.getLifespanFromGenome(PackedGenome.getActive(queen, ApiarySystem.LOCUS_LIFESPAN));
+            long tickTime = beeRegistry.getTickTimeFromGenome(PackedGenome.getActive(queen, ApiarySystem.LOCUS_SPEED));
+            int produceCount = beeRegistry.getProduceCountWithChance(species, lifespan, random);
+            result.recordGeneration(species, lifespan, ApiarySystem.MATING_TIME + lifespan * tickTime, produceCount);
+
+            int offspringCount = 1 + PackedGenome.getActive(queen, ApiarySystem.LOCUS_OFFSPRING_COUNT);
+            recombiner.recombine(queen, mate, random, offspring, offspringCount);
+            for (int i = 0; i < offspringCount; i++) {
+                result.recordBirth(offspring[i]);
+            }
+
+            queen = offspring[0];
+            if (offspringCount > 1) {
+                mate = offspring[1 + random.nextInt(offspringCount - 1)];
+            }
+        }
+    }
+
+    /**
+     * Simulates a range of apiaries, splitting it between tasks while it is large.
+     */
+    private final class SimulateApiaries extends RecursiveTask<SimulationResult> {
+        private final long[] princesses;
+        private final long[] drones;
+        private final int generations;
+        private final long seed;
+        private final int start;
+        private final int end;
+
+        SimulateApiaries(long[] princesses, long[] drones, int generations, long seed, int start, int end) {
+            this.princesses = princesses;
+            this.drones = drones;
+            this.generations = generations;
+            this.seed = seed;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (end - start > APIARY_BATCH_SIZE) {
+                int middle = (start + end) >>> 1;
+                SimulateApiaries left = new SimulateApiaries(princesses, drones, generations, seed, start, middle);
+                SimulateApiaries right = new SimulateApiaries(princesses, drones, generations, seed, middle, end);
+                left.fork();
+                SimulationResult result = right.compute();
+                result.add(left.join());
+                return result;
+            }
+
+            SimulationResult result = new SimulationResult(recombiner.getSize());
+            long[] offspring = new long[1 + PackedGenome.MAX_GENOTYPE];
+            for (int i = start; i < end; i++) {
+                SplittableRandom random = new SplittableRandom(MachineRandom.machineSeed(seed, i));
+                simulateApiary(princesses[i], drones[i], generations, random, offspring, result);
+            }
+            return result;
+        }
+    }
+}
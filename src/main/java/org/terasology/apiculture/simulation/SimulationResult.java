@@ -0,0 +1,168 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.simulation;
+
+import org.terasology.apiculture.genetics.PackedGenome;
+
+/**
+ * The outcome of a {@link BreedingSimulator} run: the genotype distribution of every bee born, and the produce yielded.
+ */
+public final class SimulationResult {
+    private static final int GENOTYPE_COUNT = PackedGenome.MAX_GENOTYPE + 1;
+
+    private final int size;
+    private final long[] activeCounts;
+    private final long[] inactiveCounts;
+    private final long[] produce = new long[GENOTYPE_COUNT];
+    private final long[] generationsBySpecies = new long[GENOTYPE_COUNT];
+    private long generations;
+    private long births;
+    private long lifeTicks;
+    private long simulatedTime;
+    private long elapsedTime;
+
+    SimulationResult(int size) {
+        this.size = size;
+        this.activeCounts = new long[size * GENOTYPE_COUNT];
+        this.inactiveCounts = new long[size * GENOTYPE_COUNT];
+    }
+
+    /**
+     * Records a generation of an apiary: the queen's life and the produce she yielded.
+     */
+    void recordGeneration(int species, int ticks, long time, int produceCount) {
+        generations++;
+        generationsBySpecies[species]++;
+        lifeTicks += ticks;
+        simulatedTime += time;
+        produce[species] += produceCount;
+    }
+
+    /**
+     * Records the genotypes of a bee that was born.
+     */
+    void recordBirth(long genome) {
+        births++;
+        for (int locus = 0; locus < size; locus++) {
+            activeCounts[locus * GENOTYPE_COUNT + PackedGenome.getActive(genome, locus)]++;
+            inactiveCounts[locus * GENOTYPE_COUNT + PackedGenome.getInactive(genome, locus)]++;
+        }
+    }
+
+    void add(SimulationResult other) {
+        for (int i = 0; i < activeCounts.length; i++) {
+            activeCounts[i] += other.activeCounts[i];
+            inactiveCounts[i] += other.inactiveCounts[i];
+        }
+        for (int i = 0; i < GENOTYPE_COUNT; i++) {
+            produce[i] += other.produce[i];
+            generationsBySpecies[i] += other.generationsBySpecies[i];
+        }
+        generations += other.generations;
+        births += other.births;
+        lifeTicks += other.lifeTicks;
+        simulatedTime += other.simulatedTime;
+    }
+
+    void setElapsedTime(long elapsedTime) {
+        this.elapsedTime = elapsedTime;
+    }
+
+    /**
+     * @return The number of loci in the simulated genomes.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The number of queens that lived out their lifespan, across all apiaries.
+     */
+    public long getGenerations() {
+        return generations;
+    }
+
+    /**
+     * @param species The species genotype.
+     * @return The number of generations in which the queen was of the given species.
+     */
+    public long getGenerations(int species) {
+        return generationsBySpecies[species];
+    }
+
+    /**
+     * @return The number of bees born, princesses and drones.
+     */
+    public long getBirths() {
+        return births;
+    }
+
+    public long getLifeTicks() {
+        return lifeTicks;
+    }
+
+    /**
+     * @return The game time, in milliseconds, simulated across all apiaries, including mating.
+     */
+    public long getSimulatedTime() {
+        return simulatedTime;
+    }
+
+    /**
+     * @return The real time, in milliseconds, the simulation took.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * @return The number of generations simulated per second of real time.
+     */
+    public double getGenerationsPerSecond() {
+        return elapsedTime <= 0 ? 0 : generations * 1000.0 / elapsedTime;
+    }
+
+    /**
+     * @param locus The locus.
+     * @param genotype The genotype.
+     * @return The number of bees born with the genotype active at the locus.
+     */
+    public long getActiveCount(int locus, int genotype) {
+        return activeCounts[locus * GENOTYPE_COUNT + genotype];
+    }
+
+    /**
+     * @param locus The locus.
+     * @param genotype The genotype.
+     * @return The number of bees born carrying the genotype inactive at the locus.
+     */
+    public long getInactiveCount(int locus, int genotype) {
+        return inactiveCounts[locus * GENOTYPE_COUNT + genotype];
+    }
+
+    /**
+     * @param locus The locus.
+     * @param genotype The genotype.
+     * @return The fraction of all genes at the locus, active and inactive, of bees born that are of the genotype.
+     */
+    public double getGenotypeFrequency(int locus, int genotype) {
+        return births == 0 ? 0 : (getActiveCount(locus, genotype) + getInactiveCount(locus, genotype)) / (2.0 * births);
+    }
+
+    /**
+     * @param species The species genotype.
+     * @return The amount of produce yielded by queens of the species.
+     */
+    public long getProduce(int species) {
+        return produce[species];
+    }
+
+    /**
+     * @param species The species genotype.
+     * @return The produce yielded by queens of the species per hour of game time of a single apiary, averaged over the
+     *         whole simulation.
+     */
+    public double getProducePerApiaryHour(int species) {
+        return simulatedTime <= 0 ? 0 : produce[species] * 3600000.0 / simulatedTime;
+    }
+}
@@ -0,0 +1,79 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.systems;
+
+import org.terasology.apiculture.BeeRegistry;
+import org.terasology.apiculture.MachineRandom;
+import org.terasology.apiculture.genetics.GenomeRecombiner;
+import org.terasology.apiculture.genetics.PackedGenome;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The life ticks of a single apiary, computed from a plain data snapshot of its queen.
+ *
+ * {@link #compute} touches no entities and draws from a random stream of its own, so the life ticks of many apiaries can
+ * be computed in parallel. Applying the outcome to the entities is left to the {@link ApiarySystem}, on the main thread.
+ * Instances are reused between game updates.
+ */
+final class ApiaryLifeTick {
+    EntityRef apiary = EntityRef.NULL;
+
+    long machineSeed;
+    int species;
+    long queenGenome;
+    long droneGenome;
+    long tickTime;
+
+    /** The number of consecutive ticks to compute: one for a regular tick, or all ticks missed while unloaded. */
+    int tickCount;
+
+    /** The queen's remaining lifespan in ticks, before {@link #compute} and after it. */
+    int ticksRemaining;
+
+    /** The game time of the queen's last tick, before {@link #compute} and after it. */
+    long lastTickTime;
+
+    int produceCount;
+
+    /** The packed genomes of the queen's offspring if she gives birth: a princess, then up to 15 drones sorted by genome. */
+    final long[] offspring = new long[1 + PackedGenome.MAX_GENOTYPE];
+    int offspringCount;
+
+    /**
+     * Computes the produce, remaining lifespan, and offspring resulting from the ticks.
+     *
+     * @param beeRegistry The registry to read produce chances from.
+     * @param recombiner The recombiner to generate offspring with.
+     */
+    void compute(BeeRegistry beeRegistry, GenomeRecombiner recombiner) {
+        ticksRemaining -= tickCount;
+        lastTickTime += tickCount * tickTime;
+        SplittableRandom random = MachineRandom.forTick(machineSeed, lastTickTime);
+
+        produceCount = beeRegistry.getProduceCountWithChance(species, tickCount, random);
+
+        offspringCount = 0;
+        if (isBirth()) {
+            offspringCount = 1 + PackedGenome.getActive(queenGenome, ApiarySystem.LOCUS_OFFSPRING_COUNT);
+            recombiner.recombine(queenGenome, droneGenome, random, offspring, offspringCount);
+            Arrays.sort(offspring, 1, offspringCount);
+        }
+    }
+
+    /**
+     * @return Whether the queen's lifespan has run out, so that she gives birth.
+     */
+    boolean isBirth() {
+        return ticksRemaining <= 0;
+    }
+
+    /**
+     * Releases the entities referenced by this tick.
+     */
+    void clear() {
+        apiary = EntityRef.NULL;
+    }
+}
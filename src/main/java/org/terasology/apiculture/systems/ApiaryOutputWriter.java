@@ -0,0 +1,296 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.systems;
+
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.components.LocusSampleComponent;
+import org.terasology.apiculture.components.MatedComponent;
+import org.terasology.apiculture.genetics.PackedGenome;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.logic.inventory.ItemComponent;
+import org.terasology.genetics.components.GeneticsComponent;
+import org.terasology.module.inventory.components.InventoryComponent;
+import org.terasology.module.inventory.events.InventorySlotChangedEvent;
+import org.terasology.module.inventory.events.InventorySlotStackSizeChangedEvent;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes produce and offspring into the output slots of an apiary in bulk. The injector writes its injected bees, and
+ * the extractor its samples, through it as well.
+ *
+ * The output slots are scanned once when a write begins. Items are then merged onto matching stacks, or placed into
+ * empty slots, against that snapshot alone. Nothing is written back until {@link #flush()}, which saves the inventory and
+ * stack sizes once and sends at most one inventory event per changed slot.
+ */
+final class ApiaryOutputWriter {
+    private final EntityManager entityManager;
+    private final int[] slots;
+
+    private final EntityRef[] items;
+    private final EntityRef[] originalItems;
+    private final int[] stackCounts;
+    private final int[] originalStackCounts;
+    private final int[] maxStackSizes;
+    private final Prefab[] prefabs;
+    private final boolean[] drones;
+    private final long[] droneGenomes;
+    private final boolean[] samples;
+    private final int[] sampleLoci;
+    private final int[] sampleGenotypes;
+
+    private EntityRef apiary = EntityRef.NULL;
+    private InventoryComponent inventory;
+
+    /**
+     * @param entityManager The entity manager to create produce with.
+     * @param slots The output slot indices of the apiary.
+     */
+    ApiaryOutputWriter(EntityManager entityManager, List<Integer> slots) {
+        this.entityManager = entityManager;
+        this.slots = new int[slots.size()];
+        for (int i = 0; i < this.slots.length; i++) {
+            this.slots[i] = slots.get(i);
+        }
+
+        items = new EntityRef[this.slots.length];
+        originalItems = new EntityRef[this.slots.length];
+        stackCounts = new int[this.slots.length];
+        originalStackCounts = new int[this.slots.length];
+        maxStackSizes = new int[this.slots.length];
+        prefabs = new Prefab[this.slots.length];
+        drones = new boolean[this.slots.length];
+        droneGenomes = new long[this.slots.length];
+        samples = new boolean[this.slots.length];
+        sampleLoci = new int[this.slots.length];
+        sampleGenotypes = new int[this.slots.length];
+    }
+
+    /**
+     * Pads the inventory of a machine with empty slots up to the given size. Machines saved before their prefab gained
+     * output slots keep their old, shorter inventory, which the writer would otherwise index past.
+     *
+     * @param entity The machine to pad the inventory of.
+     * @param slotCount The number of slots the inventory should have.
+     */
+    static void ensureSlotCount(EntityRef entity, int slotCount) {
+        InventoryComponent inventory = entity.getComponent(InventoryComponent.class);
+        if (inventory.itemSlots.size() >= slotCount) {
+            return;
+        }
+        while (inventory.itemSlots.size() < slotCount) {
+            inventory.itemSlots.add(EntityRef.NULL);
+        }
+        entity.saveComponent(inventory);
+    }
+
+    /**
+     * Begins a write to an apiary's output, scanning its output slots.
+     *
+     * @param entity The apiary to write to.
+     */
+    void begin(EntityRef entity) {
+        apiary = entity;
+        inventory = entity.getComponent(InventoryComponent.class);
+        for (int i = 0; i < slots.length; i++) {
+            EntityRef item = inventory.itemSlots.get(slots[i]);
+            items[i] = item;
+            originalItems[i] = item;
+            snapshot(i, item);
+            originalStackCounts[i] = stackCounts[i];
+        }
+    }
+
+    /**
+     * @return Whether an output slot is still empty.
+     */
+    boolean hasEmptySlot() {
+        return findEmptySlot() != -1;
+    }
+
+    /**
+     * @return The number of output slots still empty.
+     */
+    int getEmptySlotCount() {
+        int count = 0;
+        for (int i = 0; i < slots.length; i++) {
+            if (!items[i].exists()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds produce, merging it onto stacks of the same produce where possible. Entities are only created for produce
+     * that takes up an empty slot.
+     *
+     * @param prefab The prefab of the produce.
+     * @param count The amount of produce.
+     * @return The amount of produce that did not fit into the output.
+     */
+    int addProduce(Prefab prefab, int count) {
+        for (int i = 0; i < slots.length && count > 0; i++) {
+            if (prefabs[i] == prefab && stackCounts[i] < maxStackSizes[i]) {
+                int moved = Math.min(maxStackSizes[i] - stackCounts[i], count);
+                stackCounts[i] += moved;
+                count -= moved;
+            }
+        }
+        while (count > 0) {
+            int slot = findEmptySlot();
+            if (slot == -1) {
+                break;
+            }
+            place(slot, entityManager.create(prefab));
+            int moved = Math.min(Math.max(maxStackSizes[slot], 1), count);
+            stackCounts[slot] = moved;
+            count -= moved;
+        }
+        return count;
+    }
+
+    /**
+     * Merges drones onto existing stacks of identical drones.
+     *
+     * @param genome The packed genome of the drones.
+     * @param count The number of drones.
+     * @return The number of drones that did not fit onto existing stacks.
+     */
+    int stackDrones(long genome, int count) {
+        for (int i = 0; i < slots.length && count > 0; i++) {
+            if (drones[i] && droneGenomes[i] == genome) {
+                int moved = Math.min(maxStackSizes[i] - stackCounts[i], count);
+                if (moved > 0) {
+                    stackCounts[i] += moved;
+                    count -= moved;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Merges genetic samples onto existing stacks of the same samples.
+     *
+     * @param locus The locus of the samples.
+     * @param genotype The genotype of the samples.
+     * @param count The number of samples.
+     * @return The number of samples that did not fit onto existing stacks.
+     */
+    int stackSamples(int locus, int genotype, int count) {
+        for (int i = 0; i < slots.length && count > 0; i++) {
+            if (samples[i] && sampleLoci[i] == locus && sampleGenotypes[i] == genotype) {
+                int moved = Math.min(maxStackSizes[i] - stackCounts[i], count);
+                if (moved > 0) {
+                    stackCounts[i] += moved;
+                    count -= moved;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Places an item into the first empty output slot.
+     *
+     * @param item The item to place.
+     * @return Whether an empty slot was available.
+     */
+    boolean put(EntityRef item) {
+        int slot = findEmptySlot();
+        if (slot == -1) {
+            return false;
+        }
+        place(slot, item);
+        return true;
+    }
+
+    /**
+     * Discards all changes made since {@link #begin(EntityRef)}, leaving the apiary untouched. Items created for the
+     * write must be destroyed by the caller.
+     */
+    void discard() {
+        apiary = EntityRef.NULL;
+        inventory = null;
+        Arrays.fill(items, null);
+        Arrays.fill(originalItems, null);
+        Arrays.fill(prefabs, null);
+    }
+
+    /**
+     * Writes all changes made since {@link #begin(EntityRef)} to the apiary, and sends the resulting inventory events.
+     */
+    void flush() {
+        boolean slotsChanged = false;
+        for (int i = 0; i < slots.length; i++) {
+            if (items[i] != originalItems[i]) {
+                inventory.itemSlots.set(slots[i], items[i]);
+                items[i].setOwner(apiary);
+                slotsChanged = true;
+            }
+            if (stackCounts[i] != originalStackCounts[i]) {
+                ItemComponent itemComponent = items[i].getComponent(ItemComponent.class);
+                itemComponent.stackCount = (byte) stackCounts[i];
+                items[i].saveComponent(itemComponent);
+            }
+        }
+        if (slotsChanged) {
+            apiary.saveComponent(inventory);
+        }
+
+        EntityRef entity = apiary;
+        apiary = EntityRef.NULL;
+        inventory = null;
+        for (int i = 0; i < slots.length; i++) {
+            if (items[i] != originalItems[i]) {
+                entity.send(new InventorySlotChangedEvent(slots[i], originalItems[i], items[i]));
+            } else if (stackCounts[i] != originalStackCounts[i]) {
+                entity.send(new InventorySlotStackSizeChangedEvent(slots[i], originalStackCounts[i], stackCounts[i]));
+            }
+        }
+        Arrays.fill(items, null);
+        Arrays.fill(originalItems, null);
+        Arrays.fill(prefabs, null);
+    }
+
+    private int findEmptySlot() {
+        for (int i = 0; i < slots.length; i++) {
+            if (!items[i].exists()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void place(int slot, EntityRef item) {
+        items[slot] = item;
+        snapshot(slot, item);
+        originalStackCounts[slot] = stackCounts[slot];
+    }
+
+    private void snapshot(int slot, EntityRef item) {
+        ItemComponent itemComponent = item.getComponent(ItemComponent.class);
+        stackCounts[slot] = itemComponent != null ? itemComponent.stackCount : 0;
+        maxStackSizes[slot] = itemComponent != null ? itemComponent.maxStackSize : 0;
+
+        LocusSampleComponent sampleComponent = item.getComponent(LocusSampleComponent.class);
+        samples[slot] = sampleComponent != null;
+        if (samples[slot]) {
+            sampleLoci[slot] = sampleComponent.locus;
+            sampleGenotypes[slot] = sampleComponent.genotype;
+        }
+
+        BeeComponent beeComponent = item.getComponent(BeeComponent.class);
+        drones[slot] = beeComponent != null && beeComponent.type == BeeComponent.BeeType.DRONE && !item.hasComponent(MatedComponent.class);
+        if (drones[slot]) {
+            droneGenomes[slot] = PackedGenome.pack(item.getComponent(GeneticsComponent.class));
+            prefabs[slot] = null;
+        } else {
+            prefabs[slot] = beeComponent == null && !samples[slot] ? item.getParentPrefab() : null;
+        }
+    }
+}
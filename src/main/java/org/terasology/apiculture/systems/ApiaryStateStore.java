@@ -0,0 +1,427 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.systems;
+
+import org.terasology.apiculture.BeeRegistry;
+import org.terasology.apiculture.components.ApiaryComponent;
+import org.terasology.apiculture.components.MatedComponent;
+import org.terasology.apiculture.genetics.PackedGenome;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeRemoveComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.genetics.components.GeneticsComponent;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.module.inventory.components.InventoryComponent;
+import org.terasology.module.inventory.events.InventorySlotChangedEvent;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mirrors the queens of all active apiaries into flat parallel arrays, so that finding and snapshotting due life ticks
+ * reads no components.
+ *
+ * The store is optional, and disabled by default. While it is enabled, the {@link ApiarySystem} takes due apiaries from
+ * the store instead of the {@link ApiaryTickScheduler}. The rows with a ticking queen are kept in a binary min-heap of
+ * row indices ordered by due time, so due ticks are served oldest first, as the scheduler does, even when the per-frame
+ * budget leaves a backlog. The arrays are kept in sync through the lifecycle events of apiaries and their queens'
+ * {@link MatedComponent}, and through changes to the queen slot.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+@Share(ApiaryStateStore.class)
+public class ApiaryStateStore extends BaseComponentSystem {
+    /** The due time of apiaries without a ticking queen. */
+    public static final long NOT_DUE = Long.MAX_VALUE;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    @In
+    private EntityManager entityManager;
+
+    @In
+    private BeeRegistry beeRegistry;
+
+    @In
+    private ApiaryTickScheduler tickScheduler;
+
+    private boolean enabled;
+
+    private int size;
+    private long[] entityIds = new long[INITIAL_CAPACITY];
+    private EntityRef[] apiaries = new EntityRef[INITIAL_CAPACITY];
+    private long[] queenIds = new long[INITIAL_CAPACITY];
+    private long[] queenGenomes = new long[INITIAL_CAPACITY];
+    private long[] droneGenomes = new long[INITIAL_CAPACITY];
+    private int[] ticksRemaining = new int[INITIAL_CAPACITY];
+    private int[] lifespans = new int[INITIAL_CAPACITY];
+    private long[] nextDueTimes = new long[INITIAL_CAPACITY];
+    private long[] tickTimes = new long[INITIAL_CAPACITY];
+    private long[] machineSeeds = new long[INITIAL_CAPACITY];
+
+    /** The rows with a due time, as a binary min-heap ordered by {@link #nextDueTimes}. */
+    private int[] dueHeap = new int[INITIAL_CAPACITY];
+    private int dueHeapSize;
+
+    /** The position of each row in {@link #dueHeap}, or -1 for rows that are not due. */
+    private int[] heapPositions = newHeapPositions(INITIAL_CAPACITY);
+
+    private final LongIntMap rowsByApiary = new LongIntMap();
+    private final LongIntMap rowsByQueen = new LongIntMap();
+
+    /**
+     * @return Whether the store is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the store. Enabling it mirrors every active apiary, and takes over their life ticks from the
+     * tick scheduler. Disabling it hands the life ticks back.
+     *
+     * @param enabled Whether the store should be enabled.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled == this.enabled) {
+            return;
+        }
+        this.enabled = enabled;
+
+        if (enabled) {
+            tickScheduler.clear();
+            for (EntityRef apiary : entityManager.getEntitiesWith(ApiaryComponent.class, InventoryComponent.class)) {
+                refresh(apiary);
+            }
+        } else {
+            for (int row = 0; row < size; row++) {
+                if (nextDueTimes[row] != NOT_DUE) {
+                    tickScheduler.schedule(apiaries[row], nextDueTimes[row]);
+                }
+            }
+            clear();
+        }
+    }
+
+    /**
+     * @return The number of apiaries in the store.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of apiaries in the store with a ticking queen.
+     */
+    public int getQueenCount() {
+        return dueHeapSize;
+    }
+
+    /**
+     * @param now The current game time, in milliseconds.
+     * @return The number of apiaries in the store whose life tick has come due but not been processed yet.
+     */
+    public int getOverdueCount(long now) {
+        int count = 0;
+        for (int i = 0; i < dueHeapSize; i++) {
+            if (nextDueTimes[dueHeap[i]] <= now) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @ReceiveEvent(components = {ApiaryComponent.class, InventoryComponent.class})
+    public void onApiaryActivated(OnActivatedComponent event, EntityRef entity) {
+        if (enabled) {
+            refresh(entity);
+        }
+    }
+
+    @ReceiveEvent(components = {ApiaryComponent.class})
+    public void onApiaryDeactivated(BeforeDeactivateComponent event, EntityRef entity) {
+        if (enabled) {
+            remove(entity.getId());
+        }
+    }
+
+    @ReceiveEvent
+    public void onApiaryInventoryChanged(InventorySlotChangedEvent event, EntityRef entity, ApiaryComponent component) {
+        if (enabled && event.getSlot() == ApiarySystem.SLOT_FEMALE) {
+            refresh(entity);
+        }
+    }
+
+    @ReceiveEvent(components = {MatedComponent.class})
+    public void onQueenActivated(OnActivatedComponent event, EntityRef entity) {
+        refreshQueen(entity);
+    }
+
+    @ReceiveEvent(components = {MatedComponent.class})
+    public void onQueenChanged(OnChangedComponent event, EntityRef entity) {
+        refreshQueen(entity);
+    }
+
+    @ReceiveEvent(components = {MatedComponent.class})
+    public void onQueenRemoved(BeforeRemoveComponent event, EntityRef entity) {
+        int row = enabled ? rowsByQueen.get(entity.getId()) : LongIntMap.NO_VALUE;
+        if (row != LongIntMap.NO_VALUE) {
+            setDueTime(row, NOT_DUE);
+        }
+    }
+
+    /**
+     * Snapshots the life ticks of every apiary that has come due, up to a budget, reading only the store's arrays. The
+     * apiaries that have been due longest are snapshotted first. The due times of the snapshotted apiaries are cleared
+     * until their queens are next updated.
+     *
+     * @param now The current game time, in milliseconds.
+     * @param budget The maximum number of life ticks to snapshot.
+     * @param lifeTicks Reusable life ticks to fill in from index 0, grown as needed.
+     * @return The number of life ticks snapshotted.
+     */
+    int snapshotDue(long now, int budget, List<ApiaryLifeTick> lifeTicks) {
+        int count = 0;
+        while (count < budget && dueHeapSize > 0 && nextDueTimes[dueHeap[0]] <= now) {
+            int row = dueHeap[0];
+            if (count == lifeTicks.size()) {
+                lifeTicks.add(new ApiaryLifeTick());
+            }
+            ApiaryLifeTick lifeTick = lifeTicks.get(count++);
+            lifeTick.apiary = apiaries[row];
+            lifeTick.machineSeed = machineSeeds[row];
+            lifeTick.queenGenome = queenGenomes[row];
+            lifeTick.droneGenome = droneGenomes[row];
+            lifeTick.species = PackedGenome.getActive(queenGenomes[row], ApiarySystem.LOCUS_SPECIES);
+            lifeTick.tickTime = tickTimes[row];
+            lifeTick.tickCount = 1;
+            lifeTick.ticksRemaining = ticksRemaining[row];
+            lifeTick.lastTickTime = nextDueTimes[row] - tickTimes[row];
+            setDueTime(row, NOT_DUE);
+        }
+        return count;
+    }
+
+    /**
+     * Schedules the next life tick of an apiary after one of its queen's life ticks was applied, without the queen's
+     * component being saved.
+     *
+     * @param apiary The apiary to schedule.
+     * @param lastTickTime The game time of the queen's last applied tick.
+     * @param queenTicksRemaining The ticks remaining in the queen's lifespan.
+     */
+    void reschedule(EntityRef apiary, long lastTickTime, int queenTicksRemaining) {
+        int row = rowsByApiary.get(apiary.getId());
+        if (row != LongIntMap.NO_VALUE && rowsByQueen.containsKey(queenIds[row])) {
+            ticksRemaining[row] = queenTicksRemaining;
+            setDueTime(row, lastTickTime + tickTimes[row]);
+        }
+    }
+
+    private void refreshQueen(EntityRef queen) {
+        int row = enabled ? rowsByQueen.get(queen.getId()) : LongIntMap.NO_VALUE;
+        if (row != LongIntMap.NO_VALUE) {
+            refresh(apiaries[row]);
+        }
+    }
+
+    /**
+     * Reads an apiary and the queen in it into its row, adding the row if needed.
+     */
+    private void refresh(EntityRef apiary) {
+        InventoryComponent inventory = apiary.getComponent(InventoryComponent.class);
+        if (inventory == null) {
+            remove(apiary.getId());
+            return;
+        }
+
+        int row = rowsByApiary.get(apiary.getId());
+        if (row != LongIntMap.NO_VALUE) {
+            rowsByQueen.remove(queenIds[row]);
+        } else {
+            row = size++;
+            ensureCapacity(size);
+            rowsByApiary.put(apiary.getId(), row);
+        }
+
+        EntityRef queen = inventory.itemSlots.get(ApiarySystem.SLOT_FEMALE);
+        entityIds[row] = apiary.getId();
+        apiaries[row] = apiary;
+        queenIds[row] = queen.getId();
+        if (queen.exists()) {
+            rowsByQueen.put(queen.getId(), row);
+        }
+
+        MatedComponent matedComponent = queen.getComponent(MatedComponent.class);
+        GeneticsComponent queenGenetics = queen.getComponent(GeneticsComponent.class);
+        if (matedComponent == null || queenGenetics == null || matedComponent.lastTickTime <= 0) {
+            setDueTime(row, NOT_DUE);
+            return;
+        }
+
+        queenGenomes[row] = PackedGenome.pack(queenGenetics);
+        droneGenomes[row] = matedComponent.mateGenome;
+        ticksRemaining[row] = matedComponent.getTicksRemaining();
+        lifespans[row] = matedComponent.lifespan;
+        tickTimes[row] = matedComponent.tickTime > 0
+                ? matedComponent.tickTime
+                : beeRegistry.getTickTimeFromGenome(PackedGenome.getActive(queenGenomes[row], ApiarySystem.LOCUS_SPEED));
+        machineSeeds[row] = beeRegistry.getMachineSeed(apiary);
+        setDueTime(row, matedComponent.lastTickTime + tickTimes[row]);
+    }
+
+    /**
+     * Removes the row of an apiary, moving the last row into its place.
+     */
+    private void remove(long apiaryId) {
+        int row = rowsByApiary.remove(apiaryId);
+        if (row == LongIntMap.NO_VALUE) {
+            return;
+        }
+        rowsByQueen.remove(queenIds[row]);
+        setDueTime(row, NOT_DUE);
+
+        int last = --size;
+        if (row != last) {
+            entityIds[row] = entityIds[last];
+            apiaries[row] = apiaries[last];
+            queenIds[row] = queenIds[last];
+            queenGenomes[row] = queenGenomes[last];
+            droneGenomes[row] = droneGenomes[last];
+            ticksRemaining[row] = ticksRemaining[last];
+            lifespans[row] = lifespans[last];
+            nextDueTimes[row] = nextDueTimes[last];
+            tickTimes[row] = tickTimes[last];
+            machineSeeds[row] = machineSeeds[last];
+            heapPositions[row] = heapPositions[last];
+            if (heapPositions[row] != -1) {
+                dueHeap[heapPositions[row]] = row;
+            }
+            heapPositions[last] = -1;
+            rowsByApiary.put(entityIds[row], row);
+            if (rowsByQueen.containsKey(queenIds[row])) {
+                rowsByQueen.put(queenIds[row], row);
+            }
+        }
+        apiaries[last] = null;
+    }
+
+    private void clear() {
+        Arrays.fill(apiaries, 0, size, null);
+        Arrays.fill(heapPositions, 0, size, -1);
+        size = 0;
+        dueHeapSize = 0;
+        rowsByApiary.clear();
+        rowsByQueen.clear();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= entityIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, entityIds.length * 2);
+        entityIds = Arrays.copyOf(entityIds, newCapacity);
+        apiaries = Arrays.copyOf(apiaries, newCapacity);
+        queenIds = Arrays.copyOf(queenIds, newCapacity);
+        queenGenomes = Arrays.copyOf(queenGenomes, newCapacity);
+        droneGenomes = Arrays.copyOf(droneGenomes, newCapacity);
+        ticksRemaining = Arrays.copyOf(ticksRemaining, newCapacity);
+        lifespans = Arrays.copyOf(lifespans, newCapacity);
+        nextDueTimes = Arrays.copyOf(nextDueTimes, newCapacity);
+        tickTimes = Arrays.copyOf(tickTimes, newCapacity);
+        machineSeeds = Arrays.copyOf(machineSeeds, newCapacity);
+        dueHeap = Arrays.copyOf(dueHeap, newCapacity);
+        int oldCapacity = heapPositions.length;
+        heapPositions = Arrays.copyOf(heapPositions, newCapacity);
+        Arrays.fill(heapPositions, oldCapacity, newCapacity, -1);
+    }
+
+    /**
+     * Sets the due time of a row, adding it to, moving it within, or removing it from the due heap.
+     */
+    private void setDueTime(int row, long dueTime) {
+        long previous = nextDueTimes[row];
+        nextDueTimes[row] = dueTime;
+        int position = heapPositions[row];
+        if (position == -1) {
+            if (dueTime != NOT_DUE) {
+                position = dueHeapSize++;
+                dueHeap[position] = row;
+                heapPositions[row] = position;
+                siftUp(position);
+            }
+        } else if (dueTime == NOT_DUE) {
+            removeFromHeap(position);
+        } else if (dueTime < previous) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    private void removeFromHeap(int position) {
+        heapPositions[dueHeap[position]] = -1;
+        int last = --dueHeapSize;
+        if (position == last) {
+            return;
+        }
+        int moved = dueHeap[last];
+        dueHeap[position] = moved;
+        heapPositions[moved] = position;
+        siftDown(position);
+        siftUp(heapPositions[moved]);
+    }
+
+    private void siftUp(int position) {
+        int row = dueHeap[position];
+        long dueTime = nextDueTimes[row];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentRow = dueHeap[parent];
+            if (nextDueTimes[parentRow] <= dueTime) {
+                break;
+            }
+            dueHeap[position] = parentRow;
+            heapPositions[parentRow] = position;
+            position = parent;
+        }
+        dueHeap[position] = row;
+        heapPositions[row] = position;
+    }
+
+    private void siftDown(int position) {
+        int row = dueHeap[position];
+        long dueTime = nextDueTimes[row];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= dueHeapSize) {
+                break;
+            }
+            if (child + 1 < dueHeapSize && nextDueTimes[dueHeap[child + 1]] < nextDueTimes[dueHeap[child]]) {
+                child++;
+            }
+            int childRow = dueHeap[child];
+            if (nextDueTimes[childRow] >= dueTime) {
+                break;
+            }
+            dueHeap[position] = childRow;
+            heapPositions[childRow] = position;
+            position = child;
+        }
+        dueHeap[position] = row;
+        heapPositions[row] = position;
+    }
+
+    private static int[] newHeapPositions(int capacity) {
+        int[] positions = new int[capacity];
+        Arrays.fill(positions, -1);
+        return positions;
+    }
+}
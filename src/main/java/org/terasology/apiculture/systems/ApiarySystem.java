@@ -15,40 +15,49 @@
  */
 package org.terasology.apiculture.systems;
 
-import org.terasology.apiculture.TempBeeRegistry;
+import org.terasology.apiculture.BeeRegistry;
 import org.terasology.apiculture.components.ApiaryComponent;
 import org.terasology.apiculture.components.BeeComponent;
 import org.terasology.apiculture.components.MatedComponent;
+import org.terasology.apiculture.components.PendingOffspringComponent;
 import org.terasology.apiculture.components.ProcessingComponent;
+import org.terasology.apiculture.genetics.GenomeRecombiner;
+import org.terasology.apiculture.genetics.PackedGenome;
+import org.terasology.apiculture.metrics.ApiaryMetrics;
+import org.terasology.apiculture.pedigree.PedigreeLog;
 import org.terasology.engine.core.Time;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.prefab.Prefab;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.engine.logic.delay.DelayManager;
 import org.terasology.engine.logic.delay.DelayedActionTriggeredEvent;
+import org.terasology.engine.logic.inventory.ItemComponent;
 import org.terasology.engine.registry.In;
-import org.terasology.engine.world.generator.WorldGenerator;
-import org.terasology.genetics.Genome;
 import org.terasology.genetics.components.GeneticsComponent;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.module.inventory.components.InventoryComponent;
-import org.terasology.module.inventory.events.BeforeItemPutInInventory;
 import org.terasology.module.inventory.events.InventorySlotChangedEvent;
-import org.terasology.module.inventory.systems.InventoryManager;
+import org.terasology.module.inventory.events.InventorySlotStackSizeChangedEvent;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Handles Apiary related events. Also contains a number of apiary related constants.
  */
-@RegisterSystem(RegisterMode.ALWAYS) // TODO: Authority
-public class ApiarySystem extends BaseComponentSystem {
-    /** The delayed action id for life ticks. */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class ApiarySystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+    /** The delayed action id formerly used for life ticks, which are now scheduled by the {@link ApiaryTickScheduler}. */
     public static final String LIFE_TICK_EVENT = "life_tick";
 
     /** The delayed action id for the completion of mating. */
@@ -77,165 +86,456 @@ public class ApiarySystem extends BaseComponentSystem {
     /** The locus in a bee's genetics indicating the number of drone offspring a bee will have. */
     public static final int LOCUS_OFFSPRING_COUNT = 3;
 
+    /** The number of loci in a bee's genetics. */
+    public static final int GENOME_SIZE = 4;
+
 
     /** The time, in milliseconds, that mating takes in an apiary. */
     public static final long MATING_TIME = 1000L;
 
+    private static final String PRINCESS_PREFAB = "Apiculture:bee_princess";
+
+    private static final String DRONE_PREFAB = "Apiculture:bee_drone";
+
+    /** The number of life ticks computed by a single task of the compute phase. Fewer are computed inline. */
+    private static final int COMPUTE_BATCH_SIZE = 128;
+
+    /** The change recorded for reconciliation when the princess or queen slot changes. */
+    private static final int FEMALE_CHANGED = 1;
+
+    /** The change recorded for reconciliation when the drone slot changes. */
+    private static final int MALE_CHANGED = 2;
+
+    /** The change recorded for reconciliation when items are taken from an output slot. */
+    private static final int OUTPUT_CHANGED = 4;
+
+    /** The packed genome of the species C bees resulting from a species A and species B mutation. */
+    private static final long SPECIES_C_GENOME = PackedGenome.pack(new int[] {2, 2, 2, 4}, new int[] {2, 2, 2, 4});
+
     @In
     private DelayManager delayManager;
 
     @In
-    private InventoryManager inventoryManager;
+    private BeeRegistry beeRegistry;
 
     @In
     private EntityManager entityManager;
 
     @In
-    private WorldGenerator worldGenerator;
+    private Time time;
 
     @In
-    private Time time;
+    private ApiaryTickScheduler tickScheduler;
 
-    private Genome genome;
+    @In
+    private ApiaryStateStore stateStore;
+
+    @In
+    private ApiaryMetrics metrics;
+
+    @In
+    private PedigreeLog pedigreeLog;
+
+    private GenomeRecombiner recombiner;
+
+    private ApiaryOutputWriter outputWriter;
+
+    private ForkJoinPool computePool;
+
+    private final List<EntityRef> dueApiaries = new ArrayList<>();
+
+    /** Reusable life ticks, of which the first {@link #lifeTickCount} belong to the current game update. */
+    private final List<ApiaryLifeTick> lifeTicks = new ArrayList<>();
+    private int lifeTickCount;
+
+    private final ApiaryLifeTick catchUpTick = new ApiaryLifeTick();
+
+    private final MachineReconciler reconciler = new MachineReconciler();
+
+    @Override
+    public void initialise() {
+        recombiner = createRecombiner();
+        outputWriter = new ApiaryOutputWriter(entityManager, SLOTS_OUT);
+        computePool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        metrics.registerGauge(ApiaryMetrics.Gauge.ACTIVE_APIARIES,
+                () -> stateStore.isEnabled() ? stateStore.getQueenCount() : tickScheduler.getScheduledCount());
+    }
 
     /**
-     * Consumes BeforeItemPutInInventory events, handling inventory access controls.
+     * Creates a recombiner for apiary offspring, with the mutations that can occur in apiaries registered.
      *
-     * Prevents non-bees from being placed into the apiary, bees being placed
-     * into the slot inappropriate for its sex, and any items being placed into the output.
+     * @return The new recombiner.
      */
-    @ReceiveEvent
-    public void beforeItemPutIntoApiary(BeforeItemPutInInventory event, EntityRef entity, ApiaryComponent component) {
-        if (event.getSlot() == SLOT_FEMALE) {
-            if (!event.getItem().hasComponent(BeeComponent.class) || event.getItem().getComponent(BeeComponent.class).type == BeeComponent.BeeType.DRONE) {
-                event.consume();
+    public static GenomeRecombiner createRecombiner() {
+        GenomeRecombiner recombiner = new GenomeRecombiner(GENOME_SIZE);
+        recombiner.registerMutation(LOCUS_SPECIES, 0, 1, SPECIES_C_GENOME, 0.05f);
+        return recombiner;
+    }
+
+    @Override
+    public void shutdown() {
+        computePool.shutdown();
+    }
+
+    /**
+     * Reconciles the apiaries whose bee slots changed during the frame, then processes the life ticks that have come
+     * due, in three phases.
+     *
+     * The due apiaries are first snapshotted into plain data on the main thread, straight from the arrays of the
+     * {@link ApiaryStateStore} if it is enabled, or else from the components of the apiaries the tick scheduler finds
+     * due. Their life ticks are then computed in
+     * parallel on a fork-join pool, if there are enough of them to be worth it. Finally, the outcome of each is applied
+     * to the entities and inventories on the main thread again.
+     */
+    @Override
+    public void update(float delta) {
+        long startTime = metrics.startTimer();
+        reconciler.reconcile(this::reconcile);
+        processLifeTicks();
+        metrics.recordLatency(ApiaryMetrics.Handler.APIARY_UPDATE, startTime);
+    }
+
+    private void processLifeTicks() {
+        long startTime = metrics.startTimer();
+        long now = time.getGameTimeInMs();
+        if (stateStore.isEnabled()) {
+            lifeTickCount = stateStore.snapshotDue(now, tickScheduler.getBudget(), lifeTicks);
+        } else {
+            tickScheduler.collectDue(now, dueApiaries);
+            lifeTickCount = 0;
+            for (EntityRef apiary : dueApiaries) {
+                if (lifeTickCount == lifeTicks.size()) {
+                    lifeTicks.add(new ApiaryLifeTick());
+                }
+                if (snapshot(apiary, lifeTicks.get(lifeTickCount))) {
+                    lifeTickCount++;
+                }
             }
-        } else if (event.getSlot() == SLOT_MALE) {
-            if (!event.getItem().hasComponent(BeeComponent.class) || event.getItem().getComponent(BeeComponent.class).type != BeeComponent.BeeType.DRONE) {
-                event.consume();
+            dueApiaries.clear();
+        }
+        if (lifeTickCount == 0) {
+            return;
+        }
+
+        // Both sources serve the longest overdue ticks first, so a backlog over budget shows up as growing lag
+        for (int i = 0; i < lifeTickCount; i++) {
+            ApiaryLifeTick lifeTick = lifeTicks.get(i);
+            metrics.recordLag(ApiaryMetrics.Handler.LIFE_TICK, now - (lifeTick.lastTickTime + lifeTick.tickTime));
+        }
+
+        if (lifeTickCount <= COMPUTE_BATCH_SIZE) {
+            for (int i = 0; i < lifeTickCount; i++) {
+                lifeTicks.get(i).compute(beeRegistry, recombiner);
             }
-        } else if (event.getInstigator() != entity) {
-            event.consume();
+        } else {
+            computePool.invoke(new ComputeLifeTicks(0, lifeTickCount));
         }
+
+        for (int i = 0; i < lifeTickCount; i++) {
+            ApiaryLifeTick lifeTick = lifeTicks.get(i);
+            commit(lifeTick);
+            lifeTick.clear();
+        }
+        metrics.recordLatency(ApiaryMetrics.Handler.LIFE_TICK, startTime);
     }
 
     /**
-     * Receives inventory change events, scheduling appropriate functional events.
+     * Catches up on the life ticks missed while an apiary containing a queen was unloaded, and schedules the next one.
      *
-     * Schedules a lifespan tick if a queen is placed into the top slot, a mating end event if a princess-drone pair is
-     * completed, and cancels appropriate scheduled events if the queen is removed or the princess-drone pair is broken
-     * before mating is complete.
+     * Life ticks saved as delayed actions by earlier versions are cancelled and taken over by the tick scheduler, and
+     * queens are migrated in case the apiary is activated before them.
+     */
+    @ReceiveEvent(components = {ApiaryComponent.class, InventoryComponent.class})
+    public void onApiaryActivated(OnActivatedComponent event, EntityRef entity) {
+        long startTime = metrics.startTimer();
+        if (delayManager.hasDelayedAction(entity, LIFE_TICK_EVENT)) {
+            delayManager.cancelDelayedAction(entity, LIFE_TICK_EVENT);
+        }
+
+        EntityRef queenBee = entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_FEMALE);
+        MatedComponent matedComponent = queenBee.getComponent(MatedComponent.class);
+        if (matedComponent != null) {
+            boolean migrated = matedComponent.migrateContainer();
+            if (matedComponent.migrateLifespan(getTickTime(queenBee.getComponent(GeneticsComponent.class))) || migrated) {
+                queenBee.saveComponent(matedComponent);
+            }
+            catchUp(entity, queenBee);
+        }
+        metrics.recordLatency(ApiaryMetrics.Handler.APIARY_ACTIVATION, startTime);
+    }
+
+    /**
+     * Removes unloaded apiaries from the tick scheduler.
+     */
+    @ReceiveEvent(components = {ApiaryComponent.class})
+    public void onApiaryDeactivated(BeforeDeactivateComponent event, EntityRef entity) {
+        tickScheduler.cancel(entity);
+    }
+
+    /**
+     * Receives inventory change events, recording changes to the bee slots, and output slots being emptied, for the end
+     * of the update.
      */
     @ReceiveEvent
     public void onApiaryInventoryChanged(InventorySlotChangedEvent event, EntityRef entity, ApiaryComponent component) {
         if (event.getSlot() == SLOT_FEMALE) {
-            if (!event.getNewItem().hasComponent(BeeComponent.class)) {
-                entity.removeComponent(ProcessingComponent.class);
-                if (delayManager.hasDelayedAction(entity, MATING_EVENT)) {
-                    delayManager.cancelDelayedAction(entity, MATING_EVENT);
-                }
-                if (delayManager.hasDelayedAction(entity, LIFE_TICK_EVENT)) {
-                    delayManager.cancelDelayedAction(entity, LIFE_TICK_EVENT);
-                }
-            } else if (event.getNewItem().getComponent(BeeComponent.class).type == BeeComponent.BeeType.PRINCESS) {
-                BeeComponent maleBee = entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_MALE).getComponent(BeeComponent.class);
-                if (maleBee != null) {
-                    entity.addOrSaveComponent(new ProcessingComponent(time.getGameTimeInMs() + MATING_TIME));
-                    delayManager.addDelayedAction(entity, MATING_EVENT, MATING_TIME);
-                }
-            } else {
-                delayManager.addDelayedAction(entity, LIFE_TICK_EVENT,
-                        TempBeeRegistry.getTickTimeFromGenome(event.getNewItem().getComponent(GeneticsComponent.class).activeGenes.get(LOCUS_SPEED)));
-            }
+            reconciler.request(entity, FEMALE_CHANGED);
         } else if (event.getSlot() == SLOT_MALE) {
-            if (!event.getNewItem().hasComponent(BeeComponent.class)) {
-                entity.removeComponent(ProcessingComponent.class);
-                if (delayManager.hasDelayedAction(entity, MATING_EVENT)) {
-                    delayManager.cancelDelayedAction(entity, MATING_EVENT);
-                }
-            } else {
-                BeeComponent femaleBee = entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_FEMALE).getComponent(BeeComponent.class);
-                if (femaleBee != null) {
-                    if (femaleBee.type == BeeComponent.BeeType.PRINCESS) {
-                        entity.addOrSaveComponent(new ProcessingComponent(time.getGameTimeInMs() + MATING_TIME));
-                        delayManager.addDelayedAction(entity, MATING_EVENT, MATING_TIME);
-                    }
-                }
-            }
+            reconciler.request(entity, MALE_CHANGED);
+        } else if (!event.getNewItem().exists()) {
+            reconciler.request(entity, OUTPUT_CHANGED);
         }
     }
 
     /**
-     * Receives and sorts Apiary-related delayed actions, namely lifespan ticks and mating end events.
+     * Records items being taken from an output stack, which may make room for pending offspring of the same kind.
+     */
+    @ReceiveEvent
+    public void onApiaryStackSizeChanged(InventorySlotStackSizeChangedEvent event, EntityRef entity, ApiaryComponent component) {
+        if (event.getSlot() != SLOT_FEMALE && event.getSlot() != SLOT_MALE && event.getNewSize() < event.getOldSize()) {
+            reconciler.request(entity, OUTPUT_CHANGED);
+        }
+    }
+
+    /**
+     * Receives Apiary-related delayed actions, namely mating end events.
      */
     @ReceiveEvent
     public void onApiaryEvent(DelayedActionTriggeredEvent event, EntityRef entity, ApiaryComponent component) {
-        if (event.getActionId().equals(LIFE_TICK_EVENT)) {
-            onLifeTick(entity);
-        } else if (event.getActionId().equals(MATING_EVENT)) {
+        if (event.getActionId().equals(MATING_EVENT)) {
+            long startTime = metrics.startTimer();
+            ProcessingComponent processingComponent = entity.getComponent(ProcessingComponent.class);
+            if (processingComponent != null) {
+                metrics.recordLag(ApiaryMetrics.Handler.MATING, time.getGameTimeInMs() - processingComponent.finishTime);
+            }
             onMatingFinished(entity);
+            metrics.recordLatency(ApiaryMetrics.Handler.MATING, startTime);
         }
     }
 
     /**
-     * Handles a lifespan tick for a queen in a given apiary.
-     *
-     * Generates produce, updates the remaining lifespan, and triggers birthing if the end of lifespan has been reached.
+     * Takes a plain data snapshot of the queen in a due apiary for the compute phase of its life tick.
      *
-     * @param entity The apiary containing the queen for which a lifespan tick is to be completed.
+     * @param entity The due apiary.
+     * @param lifeTick The life tick to fill in.
+     * @return Whether the apiary still contains a queen, and thus needs a life tick.
      */
-    private void onLifeTick(EntityRef entity) {
+    private boolean snapshot(EntityRef entity, ApiaryLifeTick lifeTick) {
         EntityRef queenBee = entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_FEMALE);
+        MatedComponent matedComponent = queenBee.getComponent(MatedComponent.class);
+        if (matedComponent == null) {
+            return false;
+        }
 
         GeneticsComponent queenGenetics = queenBee.getComponent(GeneticsComponent.class);
-        inventoryManager.giveItem(entity, entity, TempBeeRegistry.getProduceForSpeciesWithChance(queenGenetics.activeGenes.get(LOCUS_SPECIES)), SLOTS_OUT);
+        lifeTick.apiary = entity;
+        lifeTick.machineSeed = beeRegistry.getMachineSeed(entity);
+        lifeTick.queenGenome = PackedGenome.pack(queenGenetics);
+        lifeTick.droneGenome = matedComponent.mateGenome;
+        lifeTick.species = PackedGenome.getActive(lifeTick.queenGenome, LOCUS_SPECIES);
+        lifeTick.tickTime = matedComponent.tickTime;
+        lifeTick.tickCount = 1;
+        lifeTick.ticksRemaining = matedComponent.getTicksRemaining();
+        lifeTick.lastTickTime = matedComponent.lastTickTime;
+        return true;
+    }
 
+    /**
+     * Applies the outcome of computed life ticks to an apiary and its queen.
+     *
+     * Places produce, advances the queen's last tick, and triggers birthing if the end of lifespan has been reached.
+     * Everything the ticks add to the output is written in a single batch. The queen's remaining lifespan follows from
+     * her start time and tick time, so her component is advanced in place rather than saved and replicated on every
+     * tick.
+     *
+     * @param lifeTick The computed life ticks.
+     */
+    private void commit(ApiaryLifeTick lifeTick) {
+        EntityRef entity = lifeTick.apiary;
+        EntityRef queenBee = entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_FEMALE);
         MatedComponent matedComponent = queenBee.getComponent(MatedComponent.class);
-        matedComponent.ticksRemaining--;
+        if (matedComponent == null) {
+            return;
+        }
+        matedComponent.lastTickTime = lifeTick.lastTickTime;
+        metrics.add(ApiaryMetrics.Counter.LIFE_TICKS, lifeTick.tickCount);
+        metrics.recordEvent(entity);
+
+        outputWriter.begin(entity);
+        Prefab produce = beeRegistry.getProducePrefab(lifeTick.species);
+        if (produce != null && lifeTick.produceCount > 0) {
+            outputWriter.addProduce(produce, lifeTick.produceCount);
+            metrics.add(ApiaryMetrics.Counter.PRODUCE, lifeTick.produceCount);
+        }
 
-        if (matedComponent.ticksRemaining == 0) {
-            birth(entity);
+        if (lifeTick.isBirth()) {
+            metrics.increment(ApiaryMetrics.Counter.BIRTHS);
+            pedigreeLog.recordBirth(entity, lifeTick.lastTickTime, lifeTick.queenGenome, lifeTick.droneGenome,
+                    lifeTick.offspring, lifeTick.offspringCount);
+            birth(entity, queenBee, lifeTick.offspring, lifeTick.offspringCount);
         } else {
-            queenBee.saveComponent(matedComponent);
-            delayManager.addDelayedAction(entity, LIFE_TICK_EVENT,
-                    TempBeeRegistry.getTickTimeFromGenome(queenBee.getComponent(GeneticsComponent.class).activeGenes.get(LOCUS_SPEED)));
+            scheduleLifeTick(entity, queenBee);
         }
+        outputWriter.flush();
     }
 
     /**
-     * Handles queen birthing in a given apiary.
+     * Applies all life ticks an apiary missed while it was unloaded in a single step, then schedules the next tick.
      *
-     * Generates offspring, placing them into the apiary's output if room is present, and destroys the queen.
+     * The number of missed ticks follows from the time of the queen's last tick and her tick time. Their produce is
+     * rolled as one binomial draw, and if her lifespan ran out in the meantime she gives birth straight away.
+     *
+     * @param entity The apiary that was loaded.
+     * @param queenBee The queen in the apiary.
+     */
+    private void catchUp(EntityRef entity, EntityRef queenBee) {
+        MatedComponent matedComponent = queenBee.getComponent(MatedComponent.class);
+        if (matedComponent.lastTickTime <= 0) {
+            restartLifeTicks(entity, queenBee);
+            return;
+        }
+
+        long elapsed = time.getGameTimeInMs() - matedComponent.lastTickTime;
+        int missedTicks = (int) Math.min(elapsed / matedComponent.tickTime, matedComponent.getTicksRemaining());
+        if (missedTicks <= 0) {
+            scheduleLifeTick(entity, queenBee);
+            return;
+        }
+
+        snapshot(entity, catchUpTick);
+        catchUpTick.tickCount = missedTicks;
+        catchUpTick.compute(beeRegistry, recombiner);
+        commit(catchUpTick);
+        catchUpTick.clear();
+    }
+
+    /**
+     * Handles queen birthing in a given apiary, as part of the output batch of a life tick.
+     *
+     * Places the offspring that fit into the apiary's output and keeps the rest as pending offspring, and destroys the
+     * queen. Identical drones are merged into a single stack before they are placed, and offspring entities are only
+     * created once they have room in the output.
      *
      * @param entity The apiary contianing the queen to give birth.
+     * @param queenBee The queen giving birth.
+     * @param offspring The packed genomes of the offspring: a princess, then the drones sorted by genome.
+     * @param offspringCount The number of offspring.
      */
-    private void birth(EntityRef entity) {
-        EntityRef queenBee = entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_FEMALE);
-        Iterator<GeneticsComponent> offspringGenetics = getGenome().combine(queenBee.getComponent(GeneticsComponent.class),
-                queenBee.getComponent(MatedComponent.class).container.getComponent(GeneticsComponent.class));
-
-        EntityRef offspring = entityManager.create("Apiculture:bee_princess");
-        GeneticsComponent geneticsComponent = offspringGenetics.next();
-        offspring.addComponent(geneticsComponent);
-        TempBeeRegistry.modifyItemForSpeciesAndType(offspring);
-        boolean success = inventoryManager.giveItem(entity, entity, offspring, SLOTS_OUT);
-
-        if (success) {
-            for (int i = 0; i < queenBee.getComponent(GeneticsComponent.class).activeGenes.get(LOCUS_OFFSPRING_COUNT); i++) {
-                offspring = entityManager.create("Apiculture:bee_drone");
-                geneticsComponent = offspringGenetics.next();
-                offspring.addComponent(geneticsComponent);
-                TempBeeRegistry.modifyItemForSpeciesAndType(offspring);
-                success = inventoryManager.giveItem(entity, entity, offspring, SLOTS_OUT);
-                if (!success) {
-                    break;
-                }
+    private void birth(EntityRef entity, EntityRef queenBee, long[] offspring, int offspringCount) {
+        int droneCount = offspringCount - 1;
+
+        PendingOffspringComponent pending = entity.getComponent(PendingOffspringComponent.class);
+        boolean blocked = pending != null && !pending.isEmpty();
+        if (pending == null) {
+            pending = new PendingOffspringComponent();
+        }
+
+        if (blocked || !placePrincess(offspring[0])) {
+            pending.addPrincess(offspring[0]);
+        }
+        int i = 1;
+        while (i <= droneCount) {
+            long genome = offspring[i];
+            int count = 1;
+            while (i + count <= droneCount && offspring[i + count] == genome) {
+                count++;
+            }
+            int remaining = blocked ? count : placeDrones(genome, count);
+            if (remaining > 0) {
+                pending.addDrones(genome, remaining);
             }
+            i += count;
+        }
+        if (!pending.isEmpty()) {
+            entity.addOrSaveComponent(pending);
         }
 
         queenBee.destroy();
     }
 
+    /**
+     * Moves as many pending offspring of an apiary into its output as fit, princesses first. Pending drones are merged
+     * onto stacks of identical drones even when no slot is empty.
+     *
+     * @param entity The apiary with pending offspring.
+     */
+    private void drainPendingOffspring(EntityRef entity) {
+        PendingOffspringComponent pending = entity.getComponent(PendingOffspringComponent.class);
+        outputWriter.begin(entity);
+
+        int placedPrincesses = 0;
+        while (placedPrincesses < pending.princesses.length && placePrincess(pending.princesses[placedPrincesses])) {
+            placedPrincesses++;
+        }
+        boolean placedDrones = false;
+        for (int i = 0; i < pending.droneGenomes.length; i++) {
+            int remaining = placeDrones(pending.droneGenomes[i], pending.droneCounts[i]);
+            placedDrones |= remaining < pending.droneCounts[i];
+            pending.droneCounts[i] = remaining;
+        }
+        outputWriter.flush();
+
+        if (placedPrincesses == 0 && !placedDrones) {
+            return;
+        }
+        pending.compact(placedPrincesses);
+        if (pending.isEmpty()) {
+            entity.removeComponent(PendingOffspringComponent.class);
+        } else {
+            entity.saveComponent(pending);
+        }
+    }
+
+    /**
+     * Places a princess into the output being written, creating its entity only if there is an empty slot for it.
+     *
+     * @param genome The packed genome of the princess.
+     * @return Whether the princess was placed.
+     */
+    private boolean placePrincess(long genome) {
+        if (!outputWriter.hasEmptySlot()) {
+            return false;
+        }
+        return outputWriter.put(createOffspring(PRINCESS_PREFAB, genome, 1));
+    }
+
+    /**
+     * Places identical drones into the output being written, onto existing stacks first and then as new stacks.
+     *
+     * @param genome The packed genome of the drones.
+     * @param count The number of drones.
+     * @return The number of drones that did not fit.
+     */
+    private int placeDrones(long genome, int count) {
+        int remaining = outputWriter.stackDrones(genome, count);
+        while (remaining > 0 && outputWriter.hasEmptySlot()) {
+            EntityRef drones = createOffspring(DRONE_PREFAB, genome, remaining);
+            remaining -= drones.getComponent(ItemComponent.class).stackCount;
+            outputWriter.put(drones);
+        }
+        return remaining;
+    }
+
+    /**
+     * Creates a stack of offspring bee items, inflating its packed genome into a genetics component.
+     *
+     * @param prefab The prefab of the offspring.
+     * @param genome The packed genome of the offspring.
+     * @param count The number of offspring in the stack, capped at the maximum stack size of the prefab.
+     * @return The new offspring.
+     */
+    private EntityRef createOffspring(String prefab, long genome, int count) {
+        EntityRef offspring = entityManager.create(prefab);
+        offspring.addComponent(PackedGenome.inflate(genome, GENOME_SIZE));
+        if (count > 1) {
+            ItemComponent itemComponent = offspring.getComponent(ItemComponent.class);
+            itemComponent.stackCount = (byte) Math.min(count, Math.max(itemComponent.maxStackSize, 1));
+            offspring.saveComponent(itemComponent);
+        }
+        beeRegistry.modifyItemForSpeciesAndType(offspring);
+        return offspring;
+    }
+
     /**
      * Handles mating for a given apiary.
      *
@@ -245,41 +545,130 @@ public class ApiarySystem extends BaseComponentSystem {
      * @param entity The apiary containing the princess and drone to mate.
      */
     private void onMatingFinished(EntityRef entity) {
-        entity.removeComponent(ProcessingComponent.class);
-
         EntityRef femaleBee = entity.getComponent(InventoryComponent.class).itemSlots.get(ApiarySystem.SLOT_FEMALE);
         GeneticsComponent femaleGenetics = femaleBee.getComponent(GeneticsComponent.class);
         EntityRef maleBee = entity.getComponent(InventoryComponent.class).itemSlots.get(ApiarySystem.SLOT_MALE);
-        femaleBee.addComponent(new MatedComponent(maleBee.getComponent(GeneticsComponent.class),
-                TempBeeRegistry.getLifespanFromGenome(femaleGenetics.activeGenes.get(ApiarySystem.LOCUS_LIFESPAN)),
-                entityManager));
+        femaleBee.addComponent(new MatedComponent(PackedGenome.pack(maleBee.getComponent(GeneticsComponent.class)),
+                beeRegistry.getLifespanFromGenome(femaleGenetics.activeGenes.get(ApiarySystem.LOCUS_LIFESPAN)),
+                getTickTime(femaleGenetics), time.getGameTimeInMs()));
         BeeComponent beeComponent = femaleBee.getComponent(BeeComponent.class);
         beeComponent.type = BeeComponent.BeeType.QUEEN;
         femaleBee.saveComponent(beeComponent);
-        TempBeeRegistry.modifyItemForSpeciesAndType(femaleBee);
+        beeRegistry.modifyItemForSpeciesAndType(femaleBee);
         maleBee.destroy();
+        metrics.increment(ApiaryMetrics.Counter.MATINGS);
+        metrics.recordEvent(entity);
+
+        entity.removeComponent(ProcessingComponent.class);
+        scheduleLifeTick(entity, femaleBee);
+    }
+
+    /**
+     * Reconciles the scheduled events of an apiary with the bees in it, once per update.
+     *
+     * Restarts the lifespan ticks if a queen was placed into the top slot, and cancels them if she was removed. Schedules
+     * a mating end event if a princess-drone pair is present, restarting any mating in progress as the pair changed, and
+     * cancels it if the pair was broken before mating completed. Moves pending offspring into the output once items were
+     * taken from it.
+     *
+     * @param entity The apiary to reconcile.
+     * @param changes The slots that changed since the apiary was last reconciled.
+     */
+    private void reconcile(EntityRef entity, int changes) {
+        InventoryComponent inventory = entity.getComponent(InventoryComponent.class);
+        if (inventory == null || !entity.hasComponent(ApiaryComponent.class)) {
+            return;
+        }
+        if ((changes & OUTPUT_CHANGED) != 0 && entity.hasComponent(PendingOffspringComponent.class)) {
+            drainPendingOffspring(entity);
+        }
+        if ((changes & (FEMALE_CHANGED | MALE_CHANGED)) == 0) {
+            return;
+        }
+
+        EntityRef femaleBee = inventory.itemSlots.get(SLOT_FEMALE);
+        BeeComponent femaleComponent = femaleBee.getComponent(BeeComponent.class);
+        BeeComponent maleComponent = inventory.itemSlots.get(SLOT_MALE).getComponent(BeeComponent.class);
+
+        if ((changes & FEMALE_CHANGED) != 0) {
+            if (femaleBee.hasComponent(MatedComponent.class)) {
+                restartLifeTicks(entity, femaleBee);
+            } else {
+                tickScheduler.cancel(entity);
+            }
+        }
 
-        delayManager.addDelayedAction(entity, ApiarySystem.LIFE_TICK_EVENT, TempBeeRegistry.getTickTimeFromGenome(femaleGenetics.activeGenes.get(ApiarySystem.LOCUS_SPEED)));
+        if (delayManager.hasDelayedAction(entity, MATING_EVENT)) {
+            delayManager.cancelDelayedAction(entity, MATING_EVENT);
+        }
+        if (femaleComponent != null && femaleComponent.type == BeeComponent.BeeType.PRINCESS && maleComponent != null) {
+            long now = time.getGameTimeInMs();
+            entity.addOrSaveComponent(new ProcessingComponent(now, now + MATING_TIME, 1));
+            delayManager.addDelayedAction(entity, MATING_EVENT, MATING_TIME);
+        } else if (entity.hasComponent(ProcessingComponent.class)) {
+            entity.removeComponent(ProcessingComponent.class);
+        }
     }
 
-    private Genome getGenome() {
-        if (genome == null) {
-            genome = new Genome(4, worldGenerator.getWorldSeed().hashCode());
+    /**
+     * Restarts the life ticks of a queen from the current time, as when she is placed into an apiary, and schedules the
+     * next one. Her tick time is taken from her speed gene again, in case it was injected in the meantime.
+     *
+     * @param entity The apiary containing the queen.
+     * @param queenBee The queen in the apiary.
+     */
+    private void restartLifeTicks(EntityRef entity, EntityRef queenBee) {
+        MatedComponent matedComponent = queenBee.getComponent(MatedComponent.class);
+        if (matedComponent == null) {
+            return;
+        }
+        matedComponent.restart(time.getGameTimeInMs(), getTickTime(queenBee.getComponent(GeneticsComponent.class)));
+        queenBee.saveComponent(matedComponent);
+        scheduleLifeTick(entity, queenBee);
+    }
+
+    /**
+     * Schedules the next lifespan tick for an apiary, one tick time after the queen's last tick, in the state store if
+     * it is enabled, or else in the tick scheduler.
+     *
+     * @param entity The apiary to schedule.
+     * @param queenBee The queen in the apiary.
+     */
+    private void scheduleLifeTick(EntityRef entity, EntityRef queenBee) {
+        MatedComponent matedComponent = queenBee.getComponent(MatedComponent.class);
+        if (stateStore.isEnabled()) {
+            stateStore.reschedule(entity, matedComponent.lastTickTime, matedComponent.getTicksRemaining());
+            return;
+        }
+        tickScheduler.schedule(entity, matedComponent.lastTickTime + matedComponent.tickTime);
+    }
 
-            GeneticsComponent beeCComponent = new GeneticsComponent(4);
+    private long getTickTime(GeneticsComponent queenGenetics) {
+        return beeRegistry.getTickTimeFromGenome(queenGenetics.activeGenes.get(LOCUS_SPEED));
+    }
 
-            beeCComponent.activeGenes.add(2); // TODO: (Soundwave) This is bad, both because the size isn't ensured, and because it's messy.
-            beeCComponent.activeGenes.add(2);
-            beeCComponent.activeGenes.add(2);
-            beeCComponent.activeGenes.add(4);
+    /**
+     * Computes a range of the current game update's life ticks, splitting it up over the compute pool.
+     */
+    private final class ComputeLifeTicks extends RecursiveAction {
+        private final int from;
+        private final int to;
 
-            beeCComponent.inactiveGenes.add(2);
-            beeCComponent.inactiveGenes.add(2);
-            beeCComponent.inactiveGenes.add(2);
-            beeCComponent.inactiveGenes.add(4);
+        ComputeLifeTicks(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
 
-            genome.registerMutation(0, 0, 1, beeCComponent, 0.05f);
+        @Override
+        protected void compute() {
+            if (to - from <= COMPUTE_BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    lifeTicks.get(i).compute(beeRegistry, recombiner);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ComputeLifeTicks(from, middle), new ComputeLifeTicks(middle, to));
+            }
         }
-        return genome;
     }
 }
@@ -0,0 +1,156 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.systems;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.Share;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Schedules apiary life ticks without going through the {@link org.terasology.engine.logic.delay.DelayManager}.
+ *
+ * Apiaries are grouped into buckets by their due time, and every bucket that has come due is collected in a single pass
+ * per game update, bounded by a configurable per-frame budget. Apiaries over budget stay queued for the next update.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+@Share(ApiaryTickScheduler.class)
+public class ApiaryTickScheduler extends BaseComponentSystem {
+    /** The width, in milliseconds, of a single scheduling bucket. */
+    public static final long BUCKET_WIDTH = 250L;
+
+    /** The default maximum number of life ticks processed per game update. */
+    public static final int DEFAULT_BUDGET = 1000;
+
+    private final NavigableMap<Long, ArrayDeque<EntityRef>> buckets = new TreeMap<>();
+
+    /**
+     * The bucket each scheduled apiary is due in. Entries left behind in other buckets by a reschedule or cancellation
+     * are stale, and are skipped when their bucket is processed.
+     */
+    private final Map<EntityRef, Long> dueBuckets = new HashMap<>();
+
+    private int budget = DEFAULT_BUDGET;
+
+    /**
+     * Schedules a life tick for an apiary, replacing any tick already scheduled for it.
+     *
+     * @param apiary The apiary to schedule.
+     * @param dueTime The game time, in milliseconds, at which the tick should occur.
+     */
+    public void schedule(EntityRef apiary, long dueTime) {
+        Long bucket = bucketFor(dueTime);
+        if (bucket.equals(dueBuckets.put(apiary, bucket))) {
+            return;
+        }
+        buckets.computeIfAbsent(bucket, key -> new ArrayDeque<>()).add(apiary);
+    }
+
+    /**
+     * Cancels the life tick scheduled for an apiary, if any.
+     *
+     * @param apiary The apiary to cancel.
+     */
+    public void cancel(EntityRef apiary) {
+        dueBuckets.remove(apiary);
+    }
+
+    /**
+     * @param apiary The apiary to check.
+     * @return Whether a life tick is currently scheduled for the apiary.
+     */
+    public boolean isScheduled(EntityRef apiary) {
+        return dueBuckets.containsKey(apiary);
+    }
+
+    /**
+     * @return The number of apiaries with a scheduled life tick.
+     */
+    public int getScheduledCount() {
+        return dueBuckets.size();
+    }
+
+    /**
+     * @param now The current game time, in milliseconds.
+     * @return The number of apiaries whose life tick has come due but not been collected yet.
+     */
+    public int getOverdueCount(long now) {
+        int count = 0;
+        for (long bucket : dueBuckets.values()) {
+            if (bucket <= now) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes every life tick that has come due from the schedule, up to the per-frame budget, and collects the apiaries
+     * they belong to. The caller is responsible for rescheduling them.
+     *
+     * @param now The current game time, in milliseconds.
+     * @param due The collection receiving each due apiary.
+     * @return The number of life ticks collected.
+     */
+    public int collectDue(long now, Collection<EntityRef> due) {
+        int processed = 0;
+        while (processed < budget) {
+            Map.Entry<Long, ArrayDeque<EntityRef>> bucket = buckets.firstEntry();
+            if (bucket == null || bucket.getKey() > now) {
+                break;
+            }
+
+            ArrayDeque<EntityRef> apiaries = bucket.getValue();
+            while (processed < budget && !apiaries.isEmpty()) {
+                EntityRef apiary = apiaries.poll();
+                if (dueBuckets.remove(apiary, bucket.getKey())) {
+                    processed++;
+                    if (apiary.exists()) {
+                        due.add(apiary);
+                    }
+                }
+            }
+
+            if (apiaries.isEmpty()) {
+                buckets.remove(bucket.getKey());
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * Cancels every scheduled life tick.
+     */
+    public void clear() {
+        buckets.clear();
+        dueBuckets.clear();
+    }
+
+    /**
+     * @return The maximum number of life ticks processed per game update.
+     */
+    public int getBudget() {
+        return budget;
+    }
+
+    /**
+     * Sets the maximum number of life ticks processed per game update.
+     *
+     * @param budget The new budget, at least 1.
+     */
+    public void setBudget(int budget) {
+        this.budget = Math.max(budget, 1);
+    }
+
+    private static long bucketFor(long dueTime) {
+        return (dueTime + BUCKET_WIDTH - 1) / BUCKET_WIDTH * BUCKET_WIDTH;
+    }
+}
@@ -15,37 +15,49 @@
  */
 package org.terasology.apiculture.systems;
 
-import org.terasology.apiculture.TempBeeRegistry;
+import org.terasology.apiculture.BeeRegistry;
 import org.terasology.apiculture.components.BeeComponent;
 import org.terasology.apiculture.components.ExtractorComponent;
+import org.terasology.apiculture.components.ExtractorUpgradeComponent;
 import org.terasology.apiculture.components.LocusSampleComponent;
 import org.terasology.apiculture.components.ProcessingComponent;
+import org.terasology.apiculture.metrics.ApiaryMetrics;
 import org.terasology.engine.core.Time;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.logic.common.ActivateEvent;
 import org.terasology.engine.logic.common.DisplayNameComponent;
 import org.terasology.engine.logic.delay.DelayManager;
 import org.terasology.engine.logic.delay.DelayedActionTriggeredEvent;
+import org.terasology.engine.logic.inventory.ItemComponent;
 import org.terasology.engine.registry.In;
-import org.terasology.engine.utilities.random.MersenneRandom;
 import org.terasology.genetics.components.GeneticsComponent;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.module.inventory.components.InventoryComponent;
-import org.terasology.module.inventory.events.BeforeItemPutInInventory;
 import org.terasology.module.inventory.events.InventorySlotChangedEvent;
+import org.terasology.module.inventory.events.InventorySlotStackSizeChangedEvent;
 import org.terasology.module.inventory.systems.InventoryManager;
 
-@RegisterSystem(RegisterMode.ALWAYS) // TODO: Authority
-public class ExtractorSystem extends BaseComponentSystem {
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class ExtractorSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
     /** The slot index for the input slot of the extractor. */
     public static final int SLOT_INPUT = 0;
 
-    /** The slot index for the output slot of the extractor. */
+    /** The slot index for the first output slot of the extractor. */
     public static final int SLOT_OUTPUT = 1;
 
+    /** The slot indices for the output slots of the extractor, which samples of different loci are stacked into. */
+    public static final List<Integer> SLOTS_OUTPUT = Collections.unmodifiableList(Arrays.asList(1, 2, 3, 4));
 
     /** The delayed action id for extraction completion. */
     public static final String EXTRACT_EVENT = "extract";
@@ -53,6 +65,12 @@ public class ExtractorSystem extends BaseComponentSystem {
     /** The time, in milliseconds, that extraction takes. */
     public static final long EXTRACT_TIME = 60000L;
 
+    /** The change recorded for reconciliation when the input slot changes. */
+    private static final int INPUT_CHANGED = 1;
+
+    /** The change recorded for reconciliation when items are taken from an output slot. */
+    private static final int OUTPUT_CHANGED = 2;
+
     @In
     private DelayManager delayManager;
 
@@ -65,68 +83,205 @@ public class ExtractorSystem extends BaseComponentSystem {
     @In
     private InventoryManager inventoryManager;
 
-    private MersenneRandom random = new MersenneRandom();
+    @In
+    private BeeRegistry beeRegistry;
+
+    @In
+    private ApiaryMetrics metrics;
+
+    private ApiaryOutputWriter outputWriter;
+
+    private final MachineReconciler reconciler = new MachineReconciler();
+
+    @Override
+    public void initialise() {
+        outputWriter = new ApiaryOutputWriter(entityManager, SLOTS_OUTPUT);
+    }
 
     /**
-     * Consumes BeforeItemPutInInventory events, handling inventory access controls.
-     *
-     * Prevents non-bees from being placed into the extractor, and any items being placed into the output.
+     * Reconciles the extractors whose inventory changed during the frame.
      */
-    @ReceiveEvent
-    public void beforeItemPutIntoExtractor(BeforeItemPutInInventory event, EntityRef entity, ExtractorComponent component) {
-        if (event.getSlot() == SLOT_INPUT) {
-            if (!event.getItem().hasComponent(BeeComponent.class)) {
-                event.consume();
-            }
-        } else if (event.getInstigator() != entity) {
-            event.consume();
-        }
+    @Override
+    public void update(float delta) {
+        long startTime = metrics.startTimer();
+        reconciler.reconcile(this::reconcile);
+        metrics.recordLatency(ApiaryMetrics.Handler.EXTRACTOR_UPDATE, startTime);
+    }
+
+    /**
+     * Gives extractors saved with a single output slot the output slots of the current prefab.
+     */
+    @ReceiveEvent(components = {ExtractorComponent.class, InventoryComponent.class})
+    public void onExtractorActivated(OnActivatedComponent event, EntityRef entity) {
+        ApiaryOutputWriter.ensureSlotCount(entity, SLOTS_OUTPUT.get(SLOTS_OUTPUT.size() - 1) + 1);
     }
 
     /**
-     * Receives inventory change events, scheduling appropriate functional events.
+     * Receives inventory change events, recording changes to the input and outputs for the end of the update.
      *
-     * Schedules an extraction end event if a bee is placed in the input, and cancels appropriate events if the input is removed.
+     * Adding bees to a stack already in the input does not restart the cycle in progress.
      */
     @ReceiveEvent
     public void onExtractorItemChanged(InventorySlotChangedEvent event, EntityRef entity, ExtractorComponent component) {
-        if (event.getSlot() == SLOT_INPUT) {
-            if (!event.getNewItem().hasComponent(BeeComponent.class)) {
-                entity.removeComponent(ProcessingComponent.class);
-                if (delayManager.hasDelayedAction(entity, EXTRACT_EVENT)) {
-                    delayManager.cancelDelayedAction(entity, EXTRACT_EVENT);
-                }
-            } else {
-                entity.addComponent(new ProcessingComponent(time.getGameTimeInMs() + EXTRACT_TIME));
-                delayManager.addDelayedAction(entity, EXTRACT_EVENT, EXTRACT_TIME);
-            }
+        reconciler.request(entity, event.getSlot() == SLOT_INPUT ? INPUT_CHANGED : OUTPUT_CHANGED);
+    }
+
+    /**
+     * Records items being taken from an output stack, which may make room for a cycle that completed while the outputs
+     * were full.
+     */
+    @ReceiveEvent
+    public void onExtractorStackSizeChanged(InventorySlotStackSizeChangedEvent event, EntityRef entity, ExtractorComponent component) {
+        if (event.getSlot() != SLOT_INPUT && event.getNewSize() < event.getOldSize()) {
+            reconciler.request(entity, OUTPUT_CHANGED);
         }
     }
 
     /**
-     * Handles extraction end events, choosing a random locus from the input bees genetics, placing a sample of it in
-     * the output, and destroys the bee.
+     * Handles extractor upgrades being used on a block, raising the tier of the targeted extractor by one and consuming
+     * the upgrade. Upgrades used on anything else, or on an extractor of the highest tier, are kept. The new tier
+     * applies from the next cycle on.
+     */
+    @ReceiveEvent(components = ExtractorUpgradeComponent.class)
+    public void onUpgradeUsed(ActivateEvent event, EntityRef item) {
+        EntityRef target = event.getTarget();
+        ExtractorComponent component = target.getComponent(ExtractorComponent.class);
+        if (component == null || component.tier >= ExtractorComponent.MAX_TIER) {
+            return;
+        }
+        component.tier++;
+        target.saveComponent(component);
+        inventoryManager.removeItem(event.getInstigator(), event.getInstigator(), item, true, 1);
+        event.consume();
+    }
+
+    /**
+     * Handles extraction end events, completing the cycle.
      */
     @ReceiveEvent
     public void onExtractorEvent(DelayedActionTriggeredEvent event, EntityRef entity, ExtractorComponent component) {
-        entity.removeComponent(ProcessingComponent.class);
+        long startTime = metrics.startTimer();
+        ProcessingComponent processingComponent = entity.getComponent(ProcessingComponent.class);
+        if (processingComponent != null) {
+            metrics.recordLag(ApiaryMetrics.Handler.EXTRACTION, time.getGameTimeInMs() - processingComponent.finishTime);
+        }
+        completeCycle(entity, component);
+        metrics.recordLatency(ApiaryMetrics.Handler.EXTRACTION, startTime);
+    }
+
+    /**
+     * Extracts a batch of bees from the stack in the input, as many as the extractor's tier allows, choosing a random
+     * locus from each bee's genetics. The samples are merged per locus and stacked into the outputs, and the bees
+     * consumed. The cycle stays complete but pending while the outputs cannot take all the samples. Starts the next
+     * cycle if any bees remain in the input.
+     */
+    private void completeCycle(EntityRef entity, ExtractorComponent component) {
+        ProcessingComponent processingComponent = entity.getComponent(ProcessingComponent.class);
+        if (processingComponent == null) {
+            return;
+        }
 
         EntityRef bee = entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_INPUT);
         GeneticsComponent geneticsComponent = bee.getComponent(GeneticsComponent.class);
+        if (geneticsComponent == null) {
+            entity.removeComponent(ProcessingComponent.class);
+            return;
+        }
 
-        bee.destroy();
+        int stackSize = inventoryManager.getStackSize(bee);
+        int batchSize = Math.min(component.getBatchSize(), stackSize);
+        SplittableRandom random = beeRegistry.getRandom(entity, processingComponent.finishTime);
+        int[] sampleCounts = new int[geneticsComponent.size];
+        for (int i = 0; i < batchSize; i++) {
+            sampleCounts[random.nextInt(geneticsComponent.size)]++;
+        }
 
-        EntityRef sample = entityManager.create("Apiculture:genetic_sample");
+        // Samples that cannot merge onto an existing stack each need an empty slot of their own
+        outputWriter.begin(entity);
+        int newStacks = 0;
+        for (int locus = 0; locus < sampleCounts.length; locus++) {
+            if (sampleCounts[locus] > 0) {
+                sampleCounts[locus] = outputWriter.stackSamples(locus, geneticsComponent.activeGenes.get(locus), sampleCounts[locus]);
+                if (sampleCounts[locus] > 0) {
+                    newStacks++;
+                }
+            }
+        }
+        if (newStacks > outputWriter.getEmptySlotCount()) {
+            outputWriter.discard();
+            return;
+        }
+        entity.removeComponent(ProcessingComponent.class);
+
+        for (int locus = 0; locus < sampleCounts.length; locus++) {
+            if (sampleCounts[locus] > 0) {
+                outputWriter.put(createSamples(locus, geneticsComponent.activeGenes.get(locus), sampleCounts[locus]));
+            }
+        }
+        inventoryManager.removeItem(entity, entity, bee, true, batchSize);
+        outputWriter.flush();
+        metrics.add(ApiaryMetrics.Counter.EXTRACTIONS, batchSize);
+        metrics.recordEvent(entity);
+
+        if (stackSize > batchSize) {
+            startCycle(entity);
+        }
+    }
 
-        int locus = random.nextInt(geneticsComponent.size);
-        int genotype = geneticsComponent.activeGenes.get(locus);
+    /**
+     * Schedules an extraction end event if a bee is in the input, restarting any cycle in progress as the input was
+     * replaced, and cancels the cycle if the input was removed. Resumes a cycle that completed while the outputs were
+     * full once an output changes.
+     */
+    private void reconcile(EntityRef entity, int changes) {
+        InventoryComponent inventory = entity.getComponent(InventoryComponent.class);
+        ExtractorComponent component = entity.getComponent(ExtractorComponent.class);
+        if (inventory == null || component == null) {
+            return;
+        }
+        if ((changes & INPUT_CHANGED) == 0) {
+            resumeCycle(entity, component);
+            return;
+        }
+        if (delayManager.hasDelayedAction(entity, EXTRACT_EVENT)) {
+            delayManager.cancelDelayedAction(entity, EXTRACT_EVENT);
+        }
+        if (inventory.itemSlots.get(SLOT_INPUT).hasComponent(BeeComponent.class)) {
+            startCycle(entity);
+        } else if (entity.hasComponent(ProcessingComponent.class)) {
+            entity.removeComponent(ProcessingComponent.class);
+        }
+    }
+
+    private void resumeCycle(EntityRef entity, ExtractorComponent component) {
+        ProcessingComponent processingComponent = entity.getComponent(ProcessingComponent.class);
+        if (processingComponent != null && processingComponent.finishTime <= time.getGameTimeInMs()
+                && !delayManager.hasDelayedAction(entity, EXTRACT_EVENT)) {
+            completeCycle(entity, component);
+        }
+    }
+
+    private void startCycle(EntityRef entity) {
+        long now = time.getGameTimeInMs();
+        entity.addOrSaveComponent(new ProcessingComponent(now, now + EXTRACT_TIME, 1));
+        delayManager.addDelayedAction(entity, EXTRACT_EVENT, EXTRACT_TIME);
+    }
+
+    /**
+     * Creates a stack of samples of a locus.
+     */
+    private EntityRef createSamples(int locus, int genotype, int count) {
+        EntityRef sample = entityManager.create("Apiculture:genetic_sample");
 
         sample.addComponent(new LocusSampleComponent(locus, genotype));
 
         DisplayNameComponent displayNameComponent = new DisplayNameComponent();
-        displayNameComponent.name = "Sample: " + TempBeeRegistry.getDisplayNameComponentForLocusAndGenotype(locus, genotype);
+        displayNameComponent.name = "Sample: " + beeRegistry.getDisplayNameComponentForLocusAndGenotype(locus, genotype);
         sample.addComponent(displayNameComponent);
 
-        inventoryManager.giveItem(entity, entity, sample, SLOT_OUTPUT);
+        ItemComponent itemComponent = sample.getComponent(ItemComponent.class);
+        itemComponent.stackCount = (byte) count;
+        sample.saveComponent(itemComponent);
+        return sample;
     }
 }
@@ -0,0 +1,232 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.systems;
+
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.genetics.PackedGenome;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.Share;
+import org.terasology.genetics.components.GeneticsComponent;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Indexes every loaded bee item by its active genotypes, so that bees with a given set of traits can be found without
+ * iterating every entity with genetics, wherever they are stored.
+ *
+ * Each indexed bee is given a slot, and each (locus, genotype) pair a bitmap with a bit per slot. A {@link GenotypeQuery}
+ * for several genotypes intersects their bitmaps a word at a time. Slots of bees that are destroyed or unloaded are
+ * reused, keeping the bitmaps dense.
+ *
+ * The index follows bees through their lifecycle events: it is updated when a bee is activated, when its genetics are
+ * saved (which includes genes written by the injector), and when it is deactivated. A stack of bees is a single entity,
+ * and is found once.
+ */
+@RegisterSystem(RegisterMode.ALWAYS)
+@Share(GenotypeIndex.class)
+public class GenotypeIndex extends BaseComponentSystem {
+    private static final int GENOTYPE_COUNT = PackedGenome.MAX_GENOTYPE + 1;
+    private static final int BITMAP_COUNT = PackedGenome.MAX_LOCI * GENOTYPE_COUNT;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Map<EntityRef, Integer> slots = new HashMap<>();
+    private EntityRef[] bees = new EntityRef[INITIAL_CAPACITY];
+    private long[] genomes = new long[INITIAL_CAPACITY];
+    private int[] sizes = new int[INITIAL_CAPACITY];
+
+    /** The bitmaps of bees with each active genotype, at {@link #bitmapIndex}. */
+    private final long[][] bitmaps = new long[BITMAP_COUNT][INITIAL_CAPACITY / Long.SIZE];
+    private final int[] counts = new int[BITMAP_COUNT];
+
+    /** The number of slots ever used; slots below it are either occupied or free. */
+    private int slotCount;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount;
+
+    @ReceiveEvent(components = {BeeComponent.class, GeneticsComponent.class})
+    public void onBeeActivated(OnActivatedComponent event, EntityRef entity) {
+        update(entity);
+    }
+
+    @ReceiveEvent(components = {BeeComponent.class, GeneticsComponent.class})
+    public void onBeeChanged(OnChangedComponent event, EntityRef entity) {
+        update(entity);
+    }
+
+    @ReceiveEvent(components = {BeeComponent.class, GeneticsComponent.class})
+    public void onBeeDeactivated(BeforeDeactivateComponent event, EntityRef entity) {
+        remove(entity);
+    }
+
+    /**
+     * Indexes a bee, or reindexes it if its genetics changed.
+     *
+     * @param bee The bee to index. Entities without bee genetics are removed from the index instead.
+     */
+    public void update(EntityRef bee) {
+        GeneticsComponent genetics = bee.getComponent(GeneticsComponent.class);
+        if (genetics == null || genetics.size > PackedGenome.MAX_LOCI || !bee.hasComponent(BeeComponent.class)) {
+            remove(bee);
+            return;
+        }
+        long genome = PackedGenome.pack(genetics);
+
+        Integer existing = slots.get(bee);
+        int slot;
+        if (existing == null) {
+            slot = allocateSlot();
+            slots.put(bee, slot);
+            bees[slot] = bee;
+        } else {
+            slot = existing;
+            if (genomes[slot] == genome && sizes[slot] == genetics.size) {
+                return;
+            }
+            setBits(slot, genomes[slot], sizes[slot], false);
+        }
+        genomes[slot] = genome;
+        sizes[slot] = genetics.size;
+        setBits(slot, genome, genetics.size, true);
+    }
+
+    /**
+     * Removes a bee from the index, if it is indexed.
+     *
+     * @param bee The bee to remove.
+     */
+    public void remove(EntityRef bee) {
+        Integer slot = slots.remove(bee);
+        if (slot == null) {
+            return;
+        }
+        setBits(slot, genomes[slot], sizes[slot], false);
+        bees[slot] = null;
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * @return The number of bees in the index.
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * @param locus The locus.
+     * @param genotype The genotype.
+     * @return The number of indexed bees with the genotype active at the locus.
+     */
+    public int count(int locus, int genotype) {
+        return counts[bitmapIndex(locus, genotype)];
+    }
+
+    /**
+     * @param query The genotypes to match.
+     * @return The number of indexed bees with all of the genotypes active.
+     */
+    public int count(GenotypeQuery query) {
+        int[] terms = query.getTerms();
+        if (terms.length == 0) {
+            return size();
+        } else if (terms.length == 1) {
+            return counts[terms[0]];
+        }
+        int count = 0;
+        int wordCount = getWordCount();
+        for (int word = 0; word < wordCount; word++) {
+            count += Long.bitCount(intersect(terms, word));
+        }
+        return count;
+    }
+
+    /**
+     * Collects the indexed bees with all of the given genotypes active.
+     *
+     * @param query The genotypes to match.
+     * @param results The collection receiving each bee found.
+     * @return The number of bees found.
+     */
+    public int find(GenotypeQuery query, Collection<EntityRef> results) {
+        int[] terms = query.getTerms();
+        int found = 0;
+        int wordCount = getWordCount();
+        for (int word = 0; word < wordCount; word++) {
+            long bits = terms.length == 0 ? getOccupied(word) : intersect(terms, word);
+            while (bits != 0) {
+                results.add(bees[word * Long.SIZE + Long.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+                found++;
+            }
+        }
+        return found;
+    }
+
+    static int bitmapIndex(int locus, int genotype) {
+        return locus * GENOTYPE_COUNT + genotype;
+    }
+
+    private long intersect(int[] terms, int word) {
+        long bits = bitmaps[terms[0]][word];
+        for (int i = 1; i < terms.length && bits != 0; i++) {
+            bits &= bitmaps[terms[i]][word];
+        }
+        return bits;
+    }
+
+    /**
+     * @return The bits of the occupied slots in a word, as every bee has some genotype active at locus 0.
+     */
+    private long getOccupied(int word) {
+        long bits = 0;
+        for (int genotype = 0; genotype < GENOTYPE_COUNT; genotype++) {
+            bits |= bitmaps[bitmapIndex(0, genotype)][word];
+        }
+        return bits;
+    }
+
+    private int getWordCount() {
+        return (slotCount + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private void setBits(int slot, long genome, int size, boolean set) {
+        int word = slot / Long.SIZE;
+        long mask = 1L << slot;
+        for (int locus = 0; locus < size; locus++) {
+            int index = bitmapIndex(locus, PackedGenome.getActive(genome, locus));
+            if (set) {
+                bitmaps[index][word] |= mask;
+                counts[index]++;
+            } else {
+                bitmaps[index][word] &= ~mask;
+                counts[index]--;
+            }
+        }
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == bees.length) {
+            int capacity = bees.length * 2;
+            bees = Arrays.copyOf(bees, capacity);
+            genomes = Arrays.copyOf(genomes, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+            for (int i = 0; i < BITMAP_COUNT; i++) {
+                bitmaps[i] = Arrays.copyOf(bitmaps[i], capacity / Long.SIZE);
+            }
+        }
+        return slotCount++;
+    }
+}
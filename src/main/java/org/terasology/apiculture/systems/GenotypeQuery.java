@@ -0,0 +1,38 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.systems;
+
+import org.terasology.apiculture.genetics.PackedGenome;
+
+import java.util.Arrays;
+
+/**
+ * A query of the {@link GenotypeIndex} for bees with every one of a set of active genotypes, such as a species with a
+ * long lifespan. Queries may be built once and run repeatedly.
+ */
+public final class GenotypeQuery {
+    private int[] terms = new int[0];
+
+    /**
+     * Adds a genotype the bees must have active.
+     *
+     * @param locus The locus.
+     * @param genotype The genotype the bees must have active at the locus.
+     * @return This query.
+     */
+    public GenotypeQuery with(int locus, int genotype) {
+        if (locus < 0 || locus >= PackedGenome.MAX_LOCI || genotype < 0 || genotype > PackedGenome.MAX_GENOTYPE) {
+            throw new IllegalArgumentException("No genotype " + genotype + " at locus " + locus + " can be indexed");
+        }
+        terms = Arrays.copyOf(terms, terms.length + 1);
+        terms[terms.length - 1] = GenotypeIndex.bitmapIndex(locus, genotype);
+        return this;
+    }
+
+    /**
+     * @return The bitmaps of the index to intersect.
+     */
+    int[] getTerms() {
+        return terms;
+    }
+}
@@ -15,42 +15,60 @@
  */
 package org.terasology.apiculture.systems;
 
-import org.terasology.apiculture.TempBeeRegistry;
+import org.terasology.apiculture.BeeRegistry;
 import org.terasology.apiculture.components.BeeComponent;
 import org.terasology.apiculture.components.InjectorComponent;
 import org.terasology.apiculture.components.LocusSampleComponent;
+import org.terasology.apiculture.components.MatedComponent;
 import org.terasology.apiculture.components.ProcessingComponent;
+import org.terasology.apiculture.genetics.PackedGenome;
+import org.terasology.apiculture.metrics.ApiaryMetrics;
 import org.terasology.engine.core.Time;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.engine.logic.delay.DelayManager;
 import org.terasology.engine.logic.delay.DelayedActionTriggeredEvent;
 import org.terasology.engine.registry.In;
 import org.terasology.genetics.components.GeneticsComponent;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.module.inventory.components.InventoryComponent;
-import org.terasology.module.inventory.events.BeforeItemPutInInventory;
 import org.terasology.module.inventory.events.InventorySlotChangedEvent;
+import org.terasology.module.inventory.events.InventorySlotStackSizeChangedEvent;
 import org.terasology.module.inventory.systems.InventoryManager;
 
-@RegisterSystem(RegisterMode.ALWAYS) // TODO: Authority
-public class InjectorSystem extends BaseComponentSystem {
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class InjectorSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
     /** The slot index for the sample input slot. */
     public static final int SLOT_INPUT = 0;
 
     /** The slot index for the bee input slot. */
     public static final int SLOT_BEE = 1;
 
+    /** The slot indices for the output slots, which injected bees are moved into. */
+    public static final List<Integer> SLOTS_OUTPUT = Collections.unmodifiableList(Arrays.asList(2, 3, 4, 5));
+
 
     /** The delayed action id for injection completion. */
     public static final String INJECT_EVENT = "inject";
 
-    /** The time, in milliseconds, that injection takes. */
+    /** The time, in milliseconds, that injection takes per bee. */
     public static final long INJECT_TIME = 60000L;
 
+    /** The change recorded for reconciliation when either input slot changes. */
+    private static final int INPUT_CHANGED = 1;
+
+    /** The change recorded for reconciliation when items are taken from an output slot. */
+    private static final int OUTPUT_CHANGED = 2;
+
     @In
     private DelayManager delayManager;
 
@@ -63,72 +81,217 @@ public class InjectorSystem extends BaseComponentSystem {
     @In
     private InventoryManager inventoryManager;
 
+    @In
+    private BeeRegistry beeRegistry;
+
+    @In
+    private ApiaryMetrics metrics;
+
+    private ApiaryOutputWriter outputWriter;
+
+    private final MachineReconciler reconciler = new MachineReconciler();
+
+    @Override
+    public void initialise() {
+        outputWriter = new ApiaryOutputWriter(entityManager, SLOTS_OUTPUT);
+    }
+
+    /**
+     * Reconciles the injectors whose inventory changed during the frame.
+     */
+    @Override
+    public void update(float delta) {
+        long startTime = metrics.startTimer();
+        reconciler.reconcile(this::reconcile);
+        metrics.recordLatency(ApiaryMetrics.Handler.INJECTOR_UPDATE, startTime);
+    }
+
+    /**
+     * Gives injectors saved with a single output slot the output slots of the current prefab.
+     */
+    @ReceiveEvent(components = {InjectorComponent.class, InventoryComponent.class})
+    public void onInjectorActivated(OnActivatedComponent event, EntityRef entity) {
+        ApiaryOutputWriter.ensureSlotCount(entity, SLOTS_OUTPUT.get(SLOTS_OUTPUT.size() - 1) + 1);
+    }
+
     /**
-     * Consumes BeforeItemPutInInventory events, handling inventory access controls.
+     * Receives inventory change events, recording changes to the inputs and outputs for the end of the update.
      *
-     * Prevents non-bees from being placed into the bee input slot, and non-genetic sample items from being placed
-     * in the sample input slot.
+     * Adding bees or samples to the stacks already in the inputs leaves the queue running; they are queued once it
+     * completes.
      */
     @ReceiveEvent
-    public void beforeItemPutIntoInjector(BeforeItemPutInInventory event, EntityRef entity, InjectorComponent component) {
-        if (event.getSlot() == SLOT_INPUT) {
-            if (!event.getItem().hasComponent(LocusSampleComponent.class)) {
-                event.consume();
-            }
-        } else {
-            if (!event.getItem().hasComponent(BeeComponent.class)) {
-                event.consume();
-            }
+    public void onInjectorItemChanged(InventorySlotChangedEvent event, EntityRef entity, InjectorComponent component) {
+        boolean input = event.getSlot() == SLOT_INPUT || event.getSlot() == SLOT_BEE;
+        reconciler.request(entity, input ? INPUT_CHANGED : OUTPUT_CHANGED);
+    }
+
+    /**
+     * Records items being taken from an output stack, which may make room for a queue that completed while the outputs
+     * were full.
+     */
+    @ReceiveEvent
+    public void onInjectorStackSizeChanged(InventorySlotStackSizeChangedEvent event, EntityRef entity, InjectorComponent component) {
+        if (event.getSlot() != SLOT_INPUT && event.getSlot() != SLOT_BEE && event.getNewSize() < event.getOldSize()) {
+            reconciler.request(entity, OUTPUT_CHANGED);
         }
     }
 
     /**
-     * Receives inventory change events, scheduling appropriate functional events.
-     *
-     * Schedules an injection end event if a bee and genetic sample are present in their respective slots,
-     * and cancels appropriate events if either input is removed.
+     * Handles injection end events, completing the queued jobs.
      */
     @ReceiveEvent
-    public void onInjectorItemChanged(InventorySlotChangedEvent event, EntityRef entity, InjectorComponent component) {
-        if (event.getSlot() == SLOT_INPUT) {
-            if (!event.getNewItem().hasComponent(LocusSampleComponent.class)) {
-                entity.removeComponent(ProcessingComponent.class);
-                if (delayManager.hasDelayedAction(entity, INJECT_EVENT)) {
-                    delayManager.cancelDelayedAction(entity, INJECT_EVENT);
-                }
-            } else if (entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_BEE).hasComponent(BeeComponent.class)) {
-                entity.addComponent(new ProcessingComponent(time.getGameTimeInMs() + INJECT_TIME));
-                delayManager.addDelayedAction(entity, INJECT_EVENT, INJECT_TIME);
+    public void onInjectorEvent(DelayedActionTriggeredEvent event, EntityRef entity, InjectorComponent component) {
+        long startTime = metrics.startTimer();
+        ProcessingComponent processingComponent = entity.getComponent(ProcessingComponent.class);
+        if (processingComponent != null) {
+            metrics.recordLag(ApiaryMetrics.Handler.INJECTION, time.getGameTimeInMs() - processingComponent.finishTime);
+        }
+        completeFinishedJobs(entity, false);
+        startQueue(entity);
+        metrics.recordLatency(ApiaryMetrics.Handler.INJECTION, startTime);
+    }
+
+    /**
+     * Queues a job per bee and sample in the inputs when both are present, scheduling a single injection end event for
+     * the whole queue. If either input was replaced or removed, the jobs finished so far are completed with the inputs
+     * now present, and the rest of the queue is cancelled. Completes the finished jobs, including any held while the
+     * outputs were full, once an output changes.
+     */
+    private void reconcile(EntityRef entity, int changes) {
+        if (!entity.hasComponent(InjectorComponent.class) || !entity.hasComponent(InventoryComponent.class)) {
+            return;
+        }
+        if ((changes & INPUT_CHANGED) != 0) {
+            if (delayManager.hasDelayedAction(entity, INJECT_EVENT)) {
+                delayManager.cancelDelayedAction(entity, INJECT_EVENT);
             }
+            completeFinishedJobs(entity, true);
         } else {
-            if (!event.getNewItem().hasComponent(BeeComponent.class)) {
-                entity.removeComponent(ProcessingComponent.class);
-                if (delayManager.hasDelayedAction(entity, INJECT_EVENT)) {
-                    delayManager.cancelDelayedAction(entity, INJECT_EVENT);
-                }
-            } else if (entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_INPUT).hasComponent(LocusSampleComponent.class)) {
-                entity.addComponent(new ProcessingComponent(time.getGameTimeInMs() + INJECT_TIME));
-                delayManager.addDelayedAction(entity, INJECT_EVENT, INJECT_TIME);
+            completeFinishedJobs(entity, false);
+        }
+        startQueue(entity);
+    }
+
+    /**
+     * Queues a job for every bee and sample in the inputs, unless a queue is already running or held.
+     */
+    private void startQueue(EntityRef entity) {
+        if (entity.hasComponent(ProcessingComponent.class)) {
+            return;
+        }
+        InventoryComponent inventory = entity.getComponent(InventoryComponent.class);
+        EntityRef sample = inventory.itemSlots.get(SLOT_INPUT);
+        EntityRef bee = inventory.itemSlots.get(SLOT_BEE);
+        if (!sample.hasComponent(LocusSampleComponent.class) || !bee.hasComponent(BeeComponent.class)) {
+            return;
+        }
+
+        int jobCount = Math.min(inventoryManager.getStackSize(sample), inventoryManager.getStackSize(bee));
+        long now = time.getGameTimeInMs();
+        entity.addComponent(new ProcessingComponent(now, now + jobCount * INJECT_TIME, jobCount));
+        delayManager.addDelayedAction(entity, INJECT_EVENT, jobCount * INJECT_TIME);
+    }
+
+    /**
+     * Completes the jobs of an injector's queue that have finished by now. Jobs run back to back, so one finishes every
+     * {@link #INJECT_TIME} after the queue started. The rest of the queue keeps running towards the scheduled end event,
+     * unless it is cancelled.
+     *
+     * Finished jobs are held while the outputs are full, and completed once an output changes.
+     *
+     * @param entity The injector.
+     * @param cancel Whether to drop the jobs that have not finished yet.
+     */
+    private void completeFinishedJobs(EntityRef entity, boolean cancel) {
+        ProcessingComponent processingComponent = entity.getComponent(ProcessingComponent.class);
+        if (processingComponent == null) {
+            return;
+        }
+
+        long startTime = processingComponent.startTime != 0 ? processingComponent.startTime
+                : processingComponent.finishTime - processingComponent.jobCount * INJECT_TIME;
+        long elapsed = Math.max(time.getGameTimeInMs() - startTime, 0L);
+        int finished = (int) Math.min(processingComponent.jobCount, elapsed / INJECT_TIME);
+
+        if (finished > 0 && !injectJobs(entity, finished)) {
+            if (cancel && finished < processingComponent.jobCount) {
+                processingComponent.startTime = startTime;
+                processingComponent.finishTime = startTime + finished * INJECT_TIME;
+                processingComponent.jobCount = finished;
+                entity.saveComponent(processingComponent);
             }
+            return;
+        }
+        if (cancel || finished == processingComponent.jobCount) {
+            entity.removeComponent(ProcessingComponent.class);
+        } else if (finished > 0) {
+            processingComponent.startTime = startTime + finished * INJECT_TIME;
+            processingComponent.jobCount -= finished;
+            entity.saveComponent(processingComponent);
         }
     }
 
     /**
-     * Handles injection end events, replacing the corresponding gene of the input bee with the gene in the sample.
+     * Injects bees with the gene in the sample, consuming a sample per bee, and moves them to the outputs.
+     *
+     * @param entity The injector.
+     * @param jobCount The number of bees to inject, capped at the bees and samples left in the inputs.
+     * @return Whether the jobs were done, or dropped as an input has run out; false if the outputs are full.
      */
-    @ReceiveEvent
-    public void onInjectorEvent(DelayedActionTriggeredEvent event, EntityRef entity, InjectorComponent component) {
-        entity.removeComponent(ProcessingComponent.class);
+    private boolean injectJobs(EntityRef entity, int jobCount) {
+        InventoryComponent inventory = entity.getComponent(InventoryComponent.class);
+        EntityRef sample = inventory.itemSlots.get(SLOT_INPUT);
+        EntityRef bee = inventory.itemSlots.get(SLOT_BEE);
+        LocusSampleComponent locusSampleComponent = sample.getComponent(LocusSampleComponent.class);
+        GeneticsComponent geneticsComponent = bee.getComponent(GeneticsComponent.class);
+        BeeComponent beeComponent = bee.getComponent(BeeComponent.class);
+        if (locusSampleComponent == null || geneticsComponent == null || beeComponent == null) {
+            return true;
+        }
 
-        EntityRef bee = entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_BEE);
+        int count = Math.min(jobCount, Math.min(inventoryManager.getStackSize(sample), inventoryManager.getStackSize(bee)));
+        int locus = locusSampleComponent.locus;
+        int genotype = locusSampleComponent.genotype;
+
+        // Bees in a stack share their genes, so the injected bees all merge onto the same output stack
+        outputWriter.begin(entity);
+        int unmerged = count;
+        if (beeComponent.type == BeeComponent.BeeType.DRONE && !bee.hasComponent(MatedComponent.class)) {
+            long genome = PackedGenome.withLocus(PackedGenome.pack(geneticsComponent), locus, genotype, genotype);
+            unmerged = outputWriter.stackDrones(genome, count);
+        }
+        if (unmerged > 0 && !outputWriter.hasEmptySlot()) {
+            outputWriter.discard();
+            return false;
+        }
+
+        if (count > unmerged) {
+            inventoryManager.removeItem(entity, entity, bee, true, count - unmerged);
+        }
+        if (unmerged > 0) {
+            EntityRef injected = inventoryManager.removeItem(entity, entity, bee, false, unmerged);
+            inject(injected, locus, genotype);
+            outputWriter.put(injected);
+        }
+        inventoryManager.removeItem(entity, entity, sample, true, count);
+        outputWriter.flush();
+        metrics.add(ApiaryMetrics.Counter.INJECTIONS, count);
+        metrics.recordEvent(entity);
+        return true;
+    }
+
+    /**
+     * Replaces the corresponding gene of a bee with the gene in a sample.
+     */
+    private void inject(EntityRef bee, int locus, int genotype) {
         GeneticsComponent geneticsComponent = bee.getComponent(GeneticsComponent.class);
-        LocusSampleComponent locusSampleComponent = entity.getComponent(InventoryComponent.class).itemSlots.get(SLOT_INPUT).getComponent(LocusSampleComponent.class);
 
-        geneticsComponent.activeGenes.set(locusSampleComponent.locus, locusSampleComponent.genotype);
-        geneticsComponent.inactiveGenes.set(locusSampleComponent.locus, locusSampleComponent.genotype);
+        geneticsComponent.activeGenes.set(locus, genotype);
+        geneticsComponent.inactiveGenes.set(locus, genotype);
 
         bee.saveComponent(geneticsComponent);
 
-        TempBeeRegistry.modifyItemForSpeciesAndType(bee);
+        beeRegistry.modifyItemForSpeciesAndType(bee);
     }
 }
@@ -0,0 +1,130 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.systems;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from long keys to non-negative int values, stored in two flat arrays without boxing.
+ *
+ * Uses open addressing with linear probing. Removal shifts the following entries of the probe sequence back, so no
+ * tombstones are left behind.
+ */
+final class LongIntMap {
+    /** The value returned for keys that are not in the map. */
+    static final int NO_VALUE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size;
+
+    LongIntMap() {
+        Arrays.fill(values, NO_VALUE);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key The key to look up.
+     * @return The value of the key, or {@link #NO_VALUE} if it is not in the map.
+     */
+    int get(long key) {
+        int slot = find(key);
+        return slot != -1 ? values[slot] : NO_VALUE;
+    }
+
+    boolean containsKey(long key) {
+        return find(key) != -1;
+    }
+
+    /**
+     * @param key The key to set.
+     * @param value The value of the key, at least 0.
+     */
+    void put(long key, int value) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != NO_VALUE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * @param key The key to remove.
+     * @return The value the key had, or {@link #NO_VALUE} if it was not in the map.
+     */
+    int remove(long key) {
+        int slot = find(key);
+        if (slot == -1) {
+            return NO_VALUE;
+        }
+        int value = values[slot];
+        size--;
+
+        // Move later entries of the probe sequence back into the gap, unless that would put them before their home slot
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != NO_VALUE) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = NO_VALUE;
+        return value;
+    }
+
+    void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != NO_VALUE) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NO_VALUE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,82 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.systems;
+
+import org.terasology.apiculture.components.ApiaryComponent;
+import org.terasology.apiculture.components.BeeComponent;
+import org.terasology.apiculture.components.ExtractorComponent;
+import org.terasology.apiculture.components.InjectorComponent;
+import org.terasology.apiculture.components.LocusSampleComponent;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.module.inventory.events.BeforeItemPutInInventory;
+
+/**
+ * Handles the inventory access controls of apiaries, extractors and injectors.
+ *
+ * The machines' simulation only runs on the authority. Their access controls also run on clients, so that moves the
+ * authority would reject are not predicted in the first place.
+ */
+@RegisterSystem(RegisterMode.ALWAYS)
+public class MachineAccessSystem extends BaseComponentSystem {
+    /**
+     * Consumes BeforeItemPutInInventory events, handling inventory access controls.
+     *
+     * Prevents non-bees from being placed into the apiary, bees being placed
+     * into the slot inappropriate for its sex, and any items being placed into the output.
+     */
+    @ReceiveEvent
+    public void beforeItemPutIntoApiary(BeforeItemPutInInventory event, EntityRef entity, ApiaryComponent component) {
+        if (event.getSlot() == ApiarySystem.SLOT_FEMALE) {
+            if (!event.getItem().hasComponent(BeeComponent.class) || event.getItem().getComponent(BeeComponent.class).type == BeeComponent.BeeType.DRONE) {
+                event.consume();
+            }
+        } else if (event.getSlot() == ApiarySystem.SLOT_MALE) {
+            if (!event.getItem().hasComponent(BeeComponent.class) || event.getItem().getComponent(BeeComponent.class).type != BeeComponent.BeeType.DRONE) {
+                event.consume();
+            }
+        } else if (event.getInstigator() != entity) {
+            event.consume();
+        }
+    }
+
+    /**
+     * Consumes BeforeItemPutInInventory events, handling inventory access controls.
+     *
+     * Prevents non-bees from being placed into the extractor, and any items being placed into the output.
+     */
+    @ReceiveEvent
+    public void beforeItemPutIntoExtractor(BeforeItemPutInInventory event, EntityRef entity, ExtractorComponent component) {
+        if (event.getSlot() == ExtractorSystem.SLOT_INPUT) {
+            if (!event.getItem().hasComponent(BeeComponent.class)) {
+                event.consume();
+            }
+        } else if (event.getInstigator() != entity) {
+            event.consume();
+        }
+    }
+
+    /**
+     * Consumes BeforeItemPutInInventory events, handling inventory access controls.
+     *
+     * Prevents non-bees from being placed into the bee input slot, non-genetic sample items from being placed
+     * in the sample input slot, and any items being placed into the outputs.
+     */
+    @ReceiveEvent
+    public void beforeItemPutIntoInjector(BeforeItemPutInInventory event, EntityRef entity, InjectorComponent component) {
+        if (event.getSlot() == InjectorSystem.SLOT_INPUT) {
+            if (!event.getItem().hasComponent(LocusSampleComponent.class)) {
+                event.consume();
+            }
+        } else if (event.getSlot() == InjectorSystem.SLOT_BEE) {
+            if (!event.getItem().hasComponent(BeeComponent.class)) {
+                event.consume();
+            }
+        } else if (event.getInstigator() != entity) {
+            event.consume();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.systems;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the inventory changes of machines during a frame, so that their processing can be rescheduled once per
+ * machine at the end of the update rather than on every slot change.
+ *
+ * Inventory change handlers only record which of a machine's slots changed. The owning system then reconciles each
+ * changed machine once, comparing the processing its inventory calls for with what is scheduled, and only touching the
+ * delay manager and {@code ProcessingComponent} where they differ.
+ */
+final class MachineReconciler {
+    /**
+     * Reconciles the processing of a single machine with its inventory.
+     */
+    @FunctionalInterface
+    interface Reconciliation {
+        /**
+         * @param machine The machine to reconcile.
+         * @param changes The bitwise or of all changes recorded for the machine since it was last reconciled.
+         */
+        void reconcile(EntityRef machine, int changes);
+    }
+
+    private Map<EntityRef, Integer> pending = new LinkedHashMap<>();
+    private Map<EntityRef, Integer> reconciling = new LinkedHashMap<>();
+
+    /**
+     * Records a change to a machine, to be reconciled at the end of the update.
+     *
+     * @param machine The machine that changed.
+     * @param changes The system-defined flags describing the change.
+     */
+    void request(EntityRef machine, int changes) {
+        pending.merge(machine, changes, (a, b) -> a | b);
+    }
+
+    /**
+     * @return The number of machines waiting to be reconciled.
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Reconciles every machine changed since the last call, in the order they were first changed. Machines that have
+     * since been destroyed are skipped. Changes recorded while reconciling are left for the next call.
+     *
+     * @param reconciliation The function reconciling a single machine.
+     */
+    void reconcile(Reconciliation reconciliation) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<EntityRef, Integer> machines = pending;
+        pending = reconciling;
+        reconciling = machines;
+        for (Map.Entry<EntityRef, Integer> entry : machines.entrySet()) {
+            if (entry.getKey().exists()) {
+                reconciliation.reconcile(entry.getKey(), entry.getValue());
+            }
+        }
+        machines.clear();
+    }
+}
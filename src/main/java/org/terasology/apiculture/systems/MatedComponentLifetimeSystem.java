@@ -15,18 +15,42 @@
  */
 package org.terasology.apiculture.systems;
 
+import org.terasology.apiculture.BeeRegistry;
 import org.terasology.apiculture.components.MatedComponent;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeRemoveComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.genetics.components.GeneticsComponent;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 
-@RegisterSystem(RegisterMode.ALWAYS) // TODO: Try to make AUTHORITY
+/**
+ * Migrates queens saved by earlier versions, which kept their mate's genetics in a separate container entity and
+ * counted their remaining lifespan down on every tick.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
 public class MatedComponentLifetimeSystem extends BaseComponentSystem {
+    @In
+    private BeeRegistry beeRegistry;
+
+    @ReceiveEvent(components = {MatedComponent.class, GeneticsComponent.class})
+    public void onActivated(OnActivatedComponent event, EntityRef ref) {
+        MatedComponent matedComponent = ref.getComponent(MatedComponent.class);
+        long tickTime = beeRegistry.getTickTimeFromGenome(ref.getComponent(GeneticsComponent.class).activeGenes.get(ApiarySystem.LOCUS_SPEED));
+        if (matedComponent.migrateContainer() | matedComponent.migrateLifespan(tickTime)) {
+            ref.saveComponent(matedComponent);
+        }
+    }
+
     @ReceiveEvent(components = {MatedComponent.class})
+    @SuppressWarnings("deprecation")
     public void onRemoved(BeforeRemoveComponent event, EntityRef ref) {
-        ref.getComponent(MatedComponent.class).container.destroy();
+        EntityRef container = ref.getComponent(MatedComponent.class).container;
+        if (container != null) {
+            container.destroy();
+        }
     }
 }
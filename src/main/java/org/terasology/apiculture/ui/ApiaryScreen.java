@@ -30,6 +30,13 @@ public class ApiaryScreen extends BaseInteractionScreen {
     @In
     private Time time;
 
+    @In
+    private MachineScreenSystem screenSystem;
+
+    private final MachineProgress progress = new MachineProgress();
+    private boolean stale = true;
+    private final Runnable onMachineChanged = () -> stale = true;
+
     @Override
     protected void initializeWithInteractionTarget(EntityRef interactionTarget) {
         if (inventory != null) {
@@ -62,6 +69,8 @@ public class ApiaryScreen extends BaseInteractionScreen {
             out2.setCellOffset(7);
             out2.setMaxCellCount(2);
         }
+        stale = true;
+        screenSystem.watch(interactionTarget, onMachineChanged);
     }
 
     @Override
@@ -79,24 +88,40 @@ public class ApiaryScreen extends BaseInteractionScreen {
     public void update(float delta) {
         super.update(delta);
 
-        EntityRef interactionTarget = getInteractionTarget();
-        ProcessingComponent matingComponent = interactionTarget.getComponent(ProcessingComponent.class);
-        if (matingComponent != null) {
+        if (stale) {
+            stale = false;
+            refreshProgress(getInteractionTarget());
+        }
+        lifespanBar.setFill(progress.getFill(time.getGameTimeInMs()));
+    }
+
+    /**
+     * Reads the apiary's mating, or its queen's lifespan, again after the {@link MachineScreenSystem} reported a change.
+     */
+    private void refreshProgress(EntityRef interactionTarget) {
+        ProcessingComponent processingComponent = interactionTarget.getComponent(ProcessingComponent.class);
+        if (processingComponent != null) {
             lifespanBar.setColor(Color.RED);
-            lifespanBar.setFill(Math.min(ApiarySystem.MATING_TIME + time.getGameTimeInMs() - matingComponent.finishTime, ApiarySystem.MATING_TIME)
-                    / (float) ApiarySystem.MATING_TIME);
+            progress.fill(processingComponent, ApiarySystem.MATING_TIME);
+            return;
+        }
+
+        EntityRef femaleBee = interactionTarget.getComponent(InventoryComponent.class).itemSlots.get(ApiarySystem.SLOT_FEMALE);
+        MatedComponent matedComponent = femaleBee.getComponent(MatedComponent.class);
+        if (matedComponent != null) {
+            lifespanBar.setColor(Color.YELLOW);
+            progress.drain(matedComponent.startTime, matedComponent.lifespan * matedComponent.tickTime);
         } else {
-            EntityRef femaleBee = interactionTarget.getComponent(InventoryComponent.class).itemSlots.get(ApiarySystem.SLOT_FEMALE);
-            if (femaleBee.hasComponent(MatedComponent.class)) {
-                lifespanBar.setColor(Color.YELLOW);
-                MatedComponent matedComponent = femaleBee.getComponent(MatedComponent.class);
-                lifespanBar.setFill((float) matedComponent.ticksRemaining / matedComponent.lifespan);
-            } else {
-                lifespanBar.setFill(0f);
-            }
+            progress.clear();
         }
     }
 
+    @Override
+    public void onClosed() {
+        super.onClosed();
+        screenSystem.unwatch(onMachineChanged);
+    }
+
     @Override
     public boolean isModal() {
         return false;
@@ -24,6 +24,13 @@ public class ExtractorScreen extends BaseInteractionScreen {
     @In
     private Time time;
 
+    @In
+    private MachineScreenSystem screenSystem;
+
+    private final MachineProgress progress = new MachineProgress();
+    private boolean stale = true;
+    private final Runnable onMachineChanged = () -> stale = true;
+
     @Override
     protected void initializeWithInteractionTarget(EntityRef interactionTarget) {
         if (inventory != null) {
@@ -38,9 +45,11 @@ public class ExtractorScreen extends BaseInteractionScreen {
         }
         if (output != null) {
             output.bindTargetEntity(new EntityRefBinding(interactionTarget));
-            output.setCellOffset(1);
-            output.setMaxCellCount(1);
+            output.setCellOffset(ExtractorSystem.SLOTS_OUTPUT.get(0));
+            output.setMaxCellCount(ExtractorSystem.SLOTS_OUTPUT.size());
         }
+        stale = true;
+        screenSystem.watch(interactionTarget, onMachineChanged);
     }
 
     @Override
@@ -55,16 +64,31 @@ public class ExtractorScreen extends BaseInteractionScreen {
     public void update(float delta) {
         super.update(delta);
 
-        EntityRef interactionTarget = getInteractionTarget();
+        if (stale) {
+            stale = false;
+            refreshProgress(getInteractionTarget());
+        }
+        progressBar.setFill(progress.getFill(time.getGameTimeInMs()));
+    }
+
+    /**
+     * Reads the extractor's processing again, after the {@link MachineScreenSystem} reported a change.
+     */
+    private void refreshProgress(EntityRef interactionTarget) {
         ProcessingComponent processingComponent = interactionTarget.getComponent(ProcessingComponent.class);
         if (processingComponent != null) {
-            progressBar.setFill(Math.min(ExtractorSystem.EXTRACT_TIME + time.getGameTimeInMs() - processingComponent.finishTime, ExtractorSystem.EXTRACT_TIME)
-                    / (float) ExtractorSystem.EXTRACT_TIME);
+            progress.fill(processingComponent, ExtractorSystem.EXTRACT_TIME);
         } else {
-            progressBar.setFill(0f);
+            progress.clear();
         }
     }
 
+    @Override
+    public void onClosed() {
+        super.onClosed();
+        screenSystem.unwatch(onMachineChanged);
+    }
+
     @Override
     public boolean isModal() {
         return false;
@@ -3,7 +3,7 @@
 package org.terasology.apiculture.ui;
 
 import org.terasology.apiculture.components.ProcessingComponent;
-import org.terasology.apiculture.systems.ExtractorSystem;
+import org.terasology.apiculture.systems.InjectorSystem;
 import org.terasology.engine.core.Time;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.logic.players.LocalPlayer;
@@ -19,11 +19,19 @@ public class InjectorScreen extends BaseInteractionScreen {
     private InventoryGrid inventory;
     private InventoryGrid input;
     private InventoryGrid bee;
+    private InventoryGrid output;
     private LifespanBar progressBar;
 
     @In
     private Time time;
 
+    @In
+    private MachineScreenSystem screenSystem;
+
+    private final MachineProgress progress = new MachineProgress();
+    private boolean stale = true;
+    private final Runnable onMachineChanged = () -> stale = true;
+
     @Override
     protected void initializeWithInteractionTarget(EntityRef interactionTarget) {
         if (inventory != null) {
@@ -41,6 +49,13 @@ public class InjectorScreen extends BaseInteractionScreen {
             bee.setCellOffset(1);
             bee.setMaxCellCount(1);
         }
+        if (output != null) {
+            output.bindTargetEntity(new EntityRefBinding(interactionTarget));
+            output.setCellOffset(InjectorSystem.SLOTS_OUTPUT.get(0));
+            output.setMaxCellCount(InjectorSystem.SLOTS_OUTPUT.size());
+        }
+        stale = true;
+        screenSystem.watch(interactionTarget, onMachineChanged);
     }
 
     @Override
@@ -48,6 +63,7 @@ public class InjectorScreen extends BaseInteractionScreen {
         inventory = find("inventory", InventoryGrid.class);
         input = find("input", InventoryGrid.class);
         bee = find("bee", InventoryGrid.class);
+        output = find("output", InventoryGrid.class);
         progressBar = find("progressBar", LifespanBar.class);
     }
 
@@ -55,16 +71,31 @@ public class InjectorScreen extends BaseInteractionScreen {
     public void update(float delta) {
         super.update(delta);
 
-        EntityRef interactionTarget = getInteractionTarget();
+        if (stale) {
+            stale = false;
+            refreshProgress(getInteractionTarget());
+        }
+        progressBar.setFill(progress.getFill(time.getGameTimeInMs()));
+    }
+
+    /**
+     * Reads the injector's processing again, after the {@link MachineScreenSystem} reported a change.
+     */
+    private void refreshProgress(EntityRef interactionTarget) {
         ProcessingComponent processingComponent = interactionTarget.getComponent(ProcessingComponent.class);
         if (processingComponent != null) {
-            progressBar.setFill(Math.min(ExtractorSystem.EXTRACT_TIME + time.getGameTimeInMs() - processingComponent.finishTime, ExtractorSystem.EXTRACT_TIME)
-                    / (float) ExtractorSystem.EXTRACT_TIME);
+            progress.fill(processingComponent, InjectorSystem.INJECT_TIME);
         } else {
-            progressBar.setFill(0f);
+            progress.clear();
         }
     }
 
+    @Override
+    public void onClosed() {
+        super.onClosed();
+        screenSystem.unwatch(onMachineChanged);
+    }
+
     @Override
     public boolean isModal() {
         return false;
@@ -0,0 +1,75 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.ui;
+
+import org.terasology.apiculture.components.ProcessingComponent;
+
+/**
+ * The fill of a machine screen's progress bar as a linear function of game time.
+ *
+ * Screens set it from the machine's components when the {@link MachineScreenSystem} reports a change, so that each
+ * frame only needs to interpolate it.
+ */
+final class MachineProgress {
+    private float fill;
+    private long startTime;
+    private float rate;
+
+    /**
+     * Shows an empty bar.
+     */
+    void clear() {
+        hold(0f);
+    }
+
+    /**
+     * Shows a bar that does not change over time.
+     *
+     * @param fill The fill of the bar.
+     */
+    void hold(float fill) {
+        this.fill = fill;
+        this.startTime = 0;
+        this.rate = 0f;
+    }
+
+    /**
+     * Shows a bar filling up over the course of some processing.
+     *
+     * @param processingComponent The processing of the machine.
+     * @param defaultDuration The duration of the processing, if it was scheduled without a start time.
+     */
+    void fill(ProcessingComponent processingComponent, long defaultDuration) {
+        long duration = processingComponent.startTime > 0
+                ? processingComponent.finishTime - processingComponent.startTime
+                : defaultDuration;
+        duration = Math.max(duration, 1L);
+        this.fill = 0f;
+        this.startTime = processingComponent.finishTime - duration;
+        this.rate = 1f / duration;
+    }
+
+    /**
+     * Shows a bar emptying over a period of time.
+     *
+     * @param startTime The game time, in milliseconds, at which the bar was full.
+     * @param duration The time, in milliseconds, until the bar is empty.
+     */
+    void drain(long startTime, long duration) {
+        if (duration <= 0) {
+            hold(1f);
+            return;
+        }
+        this.fill = 1f;
+        this.startTime = startTime;
+        this.rate = -1f / duration;
+    }
+
+    /**
+     * @param time The current game time, in milliseconds.
+     * @return The fill of the bar at the given time, which may lie outside of [0, 1].
+     */
+    float getFill(long time) {
+        return fill + (time - startTime) * rate;
+    }
+}
@@ -0,0 +1,117 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.apiculture.ui;
+
+import org.terasology.apiculture.components.MatedComponent;
+import org.terasology.apiculture.components.ProcessingComponent;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeRemoveComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnAddedComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.Share;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.module.inventory.components.InventoryComponent;
+import org.terasology.module.inventory.events.InventorySlotChangedEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Notifies open machine screens when the components they display change, so that they only need to look them up again
+ * then rather than on every frame.
+ *
+ * Listeners are only told that something changed. As removals are reported before the component is gone, they should
+ * defer looking at the machine until their next update.
+ */
+@RegisterSystem(RegisterMode.CLIENT)
+@Share(MachineScreenSystem.class)
+public class MachineScreenSystem extends BaseComponentSystem {
+    private final Map<Runnable, EntityRef> listeners = new LinkedHashMap<>();
+
+    /**
+     * Starts notifying a listener of changes to a machine, replacing the machine it was previously watching.
+     *
+     * @param machine The machine to watch.
+     * @param listener The listener to notify.
+     */
+    public void watch(EntityRef machine, Runnable listener) {
+        listeners.put(listener, machine);
+    }
+
+    /**
+     * Stops notifying a listener of changes.
+     *
+     * @param listener The listener to remove.
+     */
+    public void unwatch(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    @ReceiveEvent(components = {ProcessingComponent.class})
+    public void onProcessingAdded(OnAddedComponent event, EntityRef entity) {
+        notifyChanged(entity);
+    }
+
+    @ReceiveEvent(components = {ProcessingComponent.class})
+    public void onProcessingChanged(OnChangedComponent event, EntityRef entity) {
+        notifyChanged(entity);
+    }
+
+    @ReceiveEvent(components = {ProcessingComponent.class})
+    public void onProcessingRemoved(BeforeRemoveComponent event, EntityRef entity) {
+        notifyChanged(entity);
+    }
+
+    @ReceiveEvent
+    public void onSlotChanged(InventorySlotChangedEvent event, EntityRef entity) {
+        notifyChanged(entity);
+    }
+
+    /**
+     * Inventories replicated from the authority do not send slot change events on clients, only component changes.
+     */
+    @ReceiveEvent(components = {InventoryComponent.class})
+    public void onInventoryChanged(OnChangedComponent event, EntityRef entity) {
+        notifyChanged(entity);
+    }
+
+    @ReceiveEvent(components = {MatedComponent.class})
+    public void onMatedAdded(OnAddedComponent event, EntityRef entity) {
+        notifyAllChanged();
+    }
+
+    @ReceiveEvent(components = {MatedComponent.class})
+    public void onMatedChanged(OnChangedComponent event, EntityRef entity) {
+        notifyAllChanged();
+    }
+
+    @ReceiveEvent(components = {MatedComponent.class})
+    public void onMatedRemoved(BeforeRemoveComponent event, EntityRef entity) {
+        notifyAllChanged();
+    }
+
+    private void notifyChanged(EntityRef machine) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Runnable, EntityRef> entry : listeners.entrySet()) {
+            if (entry.getValue().equals(machine)) {
+                entry.getKey().run();
+            }
+        }
+    }
+
+    /**
+     * Notifies every listener, for changes to items, which do not know the machine holding them. A client rarely has
+     * more than one machine screen open, and queens' components only change when they mate or are moved, so this is
+     * cheaper than tracking the contents of every watched machine.
+     */
+    private void notifyAllChanged() {
+        for (Runnable listener : listeners.keySet()) {
+            listener.run();
+        }
+    }
+}